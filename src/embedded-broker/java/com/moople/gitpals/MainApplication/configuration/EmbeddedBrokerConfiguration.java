@@ -0,0 +1,39 @@
+package com.moople.gitpals.MainApplication.configuration;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Starts an ActiveMQ Artemis broker inside the application, so the relay mode can be used locally without installing a broker
+ * In production the nodes should use a standalone broker instead, this class and Artemis are only built with the embedded-broker profile
+ */
+@Configuration
+@ConditionalOnProperty(name = "gitpals.broker.embedded.enabled", havingValue = "true")
+public class EmbeddedBrokerConfiguration {
+
+    @Value("${gitpals.broker.embedded.host:localhost}")
+    private String host;
+
+    @Value("${gitpals.broker.embedded.port:61613}")
+    private int port;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public EmbeddedActiveMQ embeddedBroker() throws Exception {
+        ConfigurationImpl configuration = new ConfigurationImpl();
+        configuration.setPersistenceEnabled(false);
+        configuration.setSecurityEnabled(false);
+
+        // Spring sends /topic/... to every subscriber and /queue/... to one of them
+        configuration.addAcceptorConfiguration("stomp",
+                "tcp://" + host + ":" + port + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+
+        EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+
+        return broker;
+    }
+}
@@ -0,0 +1,37 @@
+package com.moople.gitpals.MainApplication.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfiguration {
+
+    /**
+     * Runs data migrations in the background, so they don't delay the start of the application
+     * Migrations are run one by one, the executor is shut down together with the application
+     */
+    @Bean
+    public ThreadPoolTaskExecutor migrationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("migration-");
+        return executor;
+    }
+
+    /**
+     * Runs the flusher that stores chat messages in the background (see MessagePersistenceService)
+     * On shutdown the flusher is interrupted and given some time to finish the batch it is storing
+     */
+    @Bean
+    public ThreadPoolTaskExecutor messageFlushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("message-flusher-");
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
@@ -0,0 +1,113 @@
+package com.moople.gitpals.MainApplication.configuration;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompReactorNettyCodec;
+import org.springframework.messaging.tcp.ReconnectStrategy;
+import org.springframework.messaging.tcp.TcpConnection;
+import org.springframework.messaging.tcp.TcpConnectionHandler;
+import org.springframework.messaging.tcp.TcpOperations;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP client of the broker relay that knows several broker addresses
+ * All connections (the system one and the ones of client sessions) go to the current address, because brokers are not clustered
+ * and a message sent through one broker never reaches subscribers of another one
+ * The client moves to the next address only when a connection to the current one fails or is lost
+ * Reconnects are retried with exponential backoff instead of the fixed interval used by the relay by default
+ */
+public class FailoverTcpClient implements TcpOperations<byte[]> {
+
+    private final ReactorNettyTcpClient<byte[]> client;
+    private final ReconnectStrategy reconnectStrategy;
+
+    // Index of the address connections go to, it only grows, the address is taken modulo the number of addresses
+    private final AtomicInteger current = new AtomicInteger();
+
+    public FailoverTcpClient(List<InetSocketAddress> addresses, long initialReconnectDelay, long maxReconnectDelay) {
+        this.client = new ReactorNettyTcpClient<>(
+                tcpClient -> tcpClient.addressSupplier(() -> addresses.get(Math.floorMod(current.get(), addresses.size()))),
+                new StompReactorNettyCodec()
+        );
+
+        this.reconnectStrategy = attempt -> {
+            long delay = initialReconnectDelay << Math.min(attempt, 20);
+            return Math.min(delay, maxReconnectDelay);
+        };
+    }
+
+    @Override
+    public ListenableFuture<Void> connect(TcpConnectionHandler<byte[]> connectionHandler) {
+        return client.connect(new FailoverHandler(connectionHandler));
+    }
+
+    /**
+     * This function is used by the relay for its system connection, the configured strategy is used instead of the relay's one
+     *
+     * @param connectionHandler handles the connection
+     * @param reconnectStrategy strategy given by the relay, ignored
+     * @return future that is done once the first connection is established
+     */
+    @Override
+    public ListenableFuture<Void> connect(TcpConnectionHandler<byte[]> connectionHandler, ReconnectStrategy reconnectStrategy) {
+        return client.connect(new FailoverHandler(connectionHandler), this.reconnectStrategy);
+    }
+
+    @Override
+    public ListenableFuture<Void> shutdown() {
+        return client.shutdown();
+    }
+
+    /**
+     * Moves connections to the next address when a connection fails
+     * When a broker goes down, all its connections fail at once, but the address is changed only once:
+     * a handler only moves the address it has connected to, so the other handlers see it has been moved already
+     */
+    private class FailoverHandler implements TcpConnectionHandler<byte[]> {
+
+        private final TcpConnectionHandler<byte[]> delegate;
+        private volatile int index = current.get();
+
+        FailoverHandler(TcpConnectionHandler<byte[]> delegate) {
+            this.delegate = delegate;
+        }
+
+        private void failover() {
+            current.compareAndSet(index, index + 1);
+
+            // A reconnect of this handler goes to the new current address
+            index = current.get();
+        }
+
+        @Override
+        public void afterConnected(TcpConnection<byte[]> connection) {
+            delegate.afterConnected(connection);
+        }
+
+        @Override
+        public void afterConnectFailure(Throwable ex) {
+            failover();
+            delegate.afterConnectFailure(ex);
+        }
+
+        @Override
+        public void handleMessage(Message<byte[]> message) {
+            delegate.handleMessage(message);
+        }
+
+        @Override
+        public void handleFailure(Throwable ex) {
+            failover();
+            delegate.handleFailure(ex);
+        }
+
+        @Override
+        public void afterConnectionClosed() {
+            delegate.afterConnectionClosed();
+        }
+    }
+}
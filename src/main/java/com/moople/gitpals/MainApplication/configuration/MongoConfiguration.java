@@ -0,0 +1,85 @@
+package com.moople.gitpals.MainApplication.configuration;
+
+import com.moople.gitpals.MainApplication.model.ForumPost;
+import com.moople.gitpals.MainApplication.model.ForumPostSummary;
+import com.moople.gitpals.MainApplication.model.MessageBucket;
+import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.tools.Timestamps;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+
+import java.util.List;
+
+@Configuration
+public class MongoConfiguration {
+
+    /**
+     * Timestamps of forum posts and messages used to be stored as strings, they are numbers now
+     * Documents that haven't been migrated yet (see TimestampMigrationService) are fixed right after they are loaded
+     */
+    @Bean
+    public LegacyTimestampListener legacyTimestampListener() {
+        return new LegacyTimestampListener();
+    }
+
+    /**
+     * Converts string timestamps of a loaded document before it is mapped to an object
+     * Only timeStamp fields of forum posts and messages are converted, every other string is read as usual
+     */
+    public static class LegacyTimestampListener extends AbstractMongoEventListener<Object> {
+
+        private static final Logger log = LoggerFactory.getLogger(LegacyTimestampListener.class);
+
+        @Override
+        public void onAfterLoad(AfterLoadEvent<Object> event) {
+            Document document = event.getDocument();
+
+            if (document == null) {
+                return;
+            }
+
+            if (ForumPost.class.equals(event.getType()) || ForumPostSummary.class.equals(event.getType())) {
+                convert(document);
+            } else if (MessageBucket.class.equals(event.getType())) {
+                convertAll(document.get("messages"));
+            } else if (User.class.equals(event.getType()) && document.get("dialogs") instanceof Document) {
+                // Messages stored inside the user document (User.dialogs), see ConversationService.migrate
+                ((Document) document.get("dialogs")).values().forEach(dialog -> {
+                    if (dialog instanceof Document) {
+                        convertAll(((Document) dialog).get("value"));
+                    }
+                });
+            }
+        }
+
+        private void convertAll(Object messages) {
+            if (messages instanceof List) {
+                ((List<?>) messages).forEach(message -> {
+                    if (message instanceof Document) {
+                        convert((Document) message);
+                    }
+                });
+            }
+        }
+
+        private void convert(Document document) {
+            Object timeStamp = document.get("timeStamp");
+
+            if (!(timeStamp instanceof String)) {
+                return;
+            }
+
+            try {
+                document.put("timeStamp", Timestamps.parse((String) timeStamp));
+            } catch (IllegalArgumentException e) {
+                log.warn("Unreadable timestamp '{}' of document {}, it is read as 0", timeStamp, document.get("_id"));
+                document.put("timeStamp", 0L);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.moople.gitpals.MainApplication.configuration;
+
+import com.moople.gitpals.MainApplication.service.WebSocketSessionService;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+/**
+ * Keeps track of open websocket sessions and of the last time each client has sent something
+ * Sending is left to Spring, which wraps every session into a ConcurrentWebSocketSessionDecorator with the configured buffer and time limits
+ */
+public class SessionTrackingHandlerDecorator extends WebSocketHandlerDecorator {
+
+    private final WebSocketSessionService sessionService;
+
+    public SessionTrackingHandlerDecorator(WebSocketHandler delegate, WebSocketSessionService sessionService) {
+        super(delegate);
+        this.sessionService = sessionService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        sessionService.register(session);
+        super.afterConnectionEstablished(session);
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        // Heartbeats count too, so a client that sends them is never idle
+        sessionService.touch(session.getId());
+        super.handleMessage(session, message);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        sessionService.unregister(session.getId());
+
+        // Spring closes a session with this status when the client is too slow to take its messages
+        if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus)) {
+            sessionService.recordEviction();
+        }
+
+        super.afterConnectionClosed(session, closeStatus);
+    }
+}
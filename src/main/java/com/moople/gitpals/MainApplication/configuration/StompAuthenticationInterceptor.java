@@ -0,0 +1,135 @@
+package com.moople.gitpals.MainApplication.configuration;
+
+import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.service.KeyStorageService;
+import com.moople.gitpals.MainApplication.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Finds out who opened a chat connection once, when the STOMP session connects
+ * Web users are already authenticated by their http session, mobile users send their jwt in the 'Authorization' header
+ * The username and user's message key are kept in session attributes, so messages don't need database lookups
+ * Subscriptions are checked too, a client can only listen to its own user queues (/user/...) and its own legacy topic
+ */
+@Component
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    public static final String USERNAME_ATTRIBUTE = "gitpals.username";
+    public static final String KEY_ATTRIBUTE = "gitpals.messageKey";
+
+    @Autowired
+    private JWTUtil jwtUtil;
+
+    @Autowired
+    private GitPalsUserDetails gitPalsUserDetails;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private KeyStorageService keyStorageService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+
+        if (accessor == null) {
+            return message;
+        }
+
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            if (!isAllowed(accessor.getDestination(), accessor.getSessionAttributes())) {
+                throw new MessageDeliveryException(message, "Subscribing to " + accessor.getDestination() + " is not allowed");
+            }
+
+            return message;
+        }
+
+        if (!StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        Principal principal = accessor.getUser();
+
+        if (principal == null) {
+            principal = authenticateByJwt(accessor.getFirstNativeHeader("Authorization"));
+
+            if (principal != null) {
+                accessor.setUser(principal);
+            }
+        }
+
+        Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+
+        // Anonymous sessions can still connect, but they can't send messages
+        if (principal == null || sessionAttributes == null) {
+            return message;
+        }
+
+        User user = userService.findByUsername(principal.getName());
+        String key = keyStorageService.findKey(principal.getName());
+
+        if (user != null && !user.isBanned() && key != null) {
+            sessionAttributes.put(USERNAME_ATTRIBUTE, user.getUsername());
+            sessionAttributes.put(KEY_ATTRIBUTE, key);
+        }
+
+        return message;
+    }
+
+    /**
+     * Raw broker destinations like /queue/messages-user{sessionId} belong to other users' sessions,
+     * and patterns like /queue/** would match them all, so only exact user destinations are allowed
+     * The only topic a client may listen to is the legacy one named after its own message key
+     *
+     * @param destination       is a destination the client wants to subscribe to
+     * @param sessionAttributes are attributes of the client's session
+     * @return true if the client may subscribe to the destination
+     */
+    private boolean isAllowed(String destination, Map<String, Object> sessionAttributes) {
+        if (destination == null || destination.contains("*") || destination.contains("?") || destination.contains("{")) {
+            return false;
+        }
+
+        if (destination.startsWith("/user/")) {
+            return true;
+        }
+
+        Object key = sessionAttributes == null ? null : sessionAttributes.get(KEY_ATTRIBUTE);
+
+        return key != null && destination.equals("/topic/messages/" + key);
+    }
+
+    private Principal authenticateByJwt(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return null;
+        }
+
+        String jwt = authorizationHeader.substring(7);
+
+        try {
+            UserDetails userDetails = gitPalsUserDetails.loadUserByUsername(jwtUtil.extractUsername(jwt));
+
+            if (jwtUtil.validateToken(jwt, userDetails)) {
+                return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            }
+        } catch (RuntimeException e) {
+            // Expired, malformed or unknown tokens just don't authenticate anyone
+        }
+
+        return null;
+    }
+}
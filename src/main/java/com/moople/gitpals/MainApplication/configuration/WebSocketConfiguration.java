@@ -1,25 +1,174 @@
 package com.moople.gitpals.MainApplication.configuration;
 
+import com.moople.gitpals.MainApplication.service.WebSocketSessionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private StompAuthenticationInterceptor stompAuthenticationInterceptor;
+
+    // Lazy, because the service uses the channel executors, which are created from this configuration
+    @Lazy
+    @Autowired
+    private WebSocketSessionService webSocketSessionService;
+
+    // The simple broker sends heartbeats with the scheduler Spring creates for the broker, so it is shut down together with the context
+    // Lazy for the same reason as the service above
+    @Lazy
+    @Autowired
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    // 'simple' keeps messages inside this application, 'relay' sends them through a STOMP broker shared by all nodes
+    @Value("${gitpals.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${gitpals.broker.destination-prefixes:/topic,/queue}")
+    private String[] destinationPrefixes;
+
+    // Comma separated host:port list, connections go to the next address when the current one fails
+    @Value("${gitpals.broker.relay.addresses:localhost:61613}")
+    private String relayAddresses;
+
+    @Value("${gitpals.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${gitpals.broker.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${gitpals.broker.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${gitpals.broker.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${gitpals.broker.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
+    @Value("${gitpals.broker.relay.reconnect-initial-delay:1000}")
+    private long relayReconnectInitialDelay;
+
+    @Value("${gitpals.broker.relay.reconnect-max-delay:30000}")
+    private long relayReconnectMaxDelay;
+
+    // Heartbeat intervals (ms) of the connection between the application and the broker / between the broker and the clients
+    @Value("${gitpals.broker.heartbeat.send:10000}")
+    private long heartbeatSend;
+
+    @Value("${gitpals.broker.heartbeat.receive:10000}")
+    private long heartbeatReceive;
+
+    @Value("${gitpals.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // When a client can't take messages as fast as they are sent, its session is closed after reaching one of these limits
+    @Value("${gitpals.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${gitpals.websocket.send-time-limit:10000}")
+    private int sendTimeLimit;
+
+    @Value("${gitpals.websocket.sockjs-heartbeat:25000}")
+    private long sockJsHeartbeat;
+
+    @Value("${gitpals.websocket.inbound.pool-size:8}")
+    private int inboundPoolSize;
+
+    @Value("${gitpals.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${gitpals.websocket.outbound.pool-size:8}")
+    private int outboundPoolSize;
+
+    @Value("${gitpals.websocket.outbound.queue-capacity:1000}")
+    private int outboundQueueCapacity;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // Private messages go to /user/queue/..., every user only gets messages sent to their own sessions
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            config.enableStompBrokerRelay(destinationPrefixes)
+                    .setTcpClient(new FailoverTcpClient(parseAddresses(relayAddresses), relayReconnectInitialDelay, relayReconnectMaxDelay))
+                    .setVirtualHost(relayVirtualHost.isEmpty() ? null : relayVirtualHost)
+                    .setClientLogin(relayClientLogin)
+                    .setClientPasscode(relayClientPasscode)
+                    .setSystemLogin(relaySystemLogin)
+                    .setSystemPasscode(relaySystemPasscode)
+                    .setSystemHeartbeatSendInterval(heartbeatSend)
+                    .setSystemHeartbeatReceiveInterval(heartbeatReceive)
+                    // Users may be connected to another node, these topics let the nodes find each other's sessions
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/user-registry");
+        } else {
+            config.enableSimpleBroker(destinationPrefixes)
+                    .setHeartbeatValue(new long[]{heartbeatSend, heartbeatReceive})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
+
         config.setApplicationDestinationPrefixes("/app");
+        config.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthenticationInterceptor);
+        registration.taskExecutor(WebSocketSessionService.boundedExecutor("ws-inbound-", inboundPoolSize, inboundQueueCapacity));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(WebSocketSessionService.boundedExecutor("ws-outbound-", outboundPoolSize, outboundQueueCapacity));
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimit)
+                .addDecoratorFactory(handler -> new SessionTrackingHandlerDecorator(handler, webSocketSessionService));
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/gitpals-messages")
                 .setAllowedOrigins("*")
-                .withSockJS();
+                .withSockJS()
+                .setHeartbeatTime(sockJsHeartbeat);
+    }
+
+    /**
+     * This function turns "host1:61613,host2:61613" into a list of addresses
+     *
+     * @param addresses comma separated host:port list
+     * @return list of socket addresses, resolved when a connection is made
+     */
+    private static List<InetSocketAddress> parseAddresses(String addresses) {
+        return Arrays.stream(addresses.split(","))
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .map(address -> {
+                    int colon = address.lastIndexOf(':');
+                    return InetSocketAddress.createUnresolved(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+                })
+                .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
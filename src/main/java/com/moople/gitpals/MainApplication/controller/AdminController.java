@@ -33,6 +33,9 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private StatisticsService statisticsService;
+
     /**
      * This function returns admin page if you are an admin
      *
@@ -61,7 +64,7 @@ public class AdminController {
             return "redirect:/";
         }
 
-        model.addAttribute("numberOfUsers", userService.findAll().size());
+        model.addAttribute("numberOfUsers", statisticsService.getNumberOfUsers());
 
         return "sections/users/admin";
     }
@@ -105,7 +108,7 @@ public class AdminController {
             return "redirect:/";
         }
 
-        model.addAttribute("numberOfProjects", projectService.findAll().size());
+        model.addAttribute("numberOfProjects", statisticsService.getNumberOfProjects());
 
         return "sections/users/admin";
     }
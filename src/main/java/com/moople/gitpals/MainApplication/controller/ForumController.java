@@ -1,9 +1,12 @@
 package com.moople.gitpals.MainApplication.controller;
 
 import com.moople.gitpals.MainApplication.model.Comment;
+import com.moople.gitpals.MainApplication.model.CursorPage;
 import com.moople.gitpals.MainApplication.model.ForumPost;
+import com.moople.gitpals.MainApplication.model.ForumPostSummary;
 import com.moople.gitpals.MainApplication.model.User;
 import com.moople.gitpals.MainApplication.service.ForumService;
+import com.moople.gitpals.MainApplication.service.ForumViewService;
 import com.moople.gitpals.MainApplication.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -14,7 +17,6 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.security.Principal;
-import java.util.List;
 
 @Controller
 public class ForumController {
@@ -25,13 +27,20 @@ public class ForumController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ForumViewService forumViewService;
+
+    private final int FORUM_PAGE_SIZE = 20;
+
     /**
      * This request is handled when user wants to open forum page
+     * Posts are shown page by page, the newest first
      *
+     * @param cursor is a token of the previous page, absent for the first page
      * @return forum page
      */
     @GetMapping("/forum")
-    public String forumPage(Principal auth, Model model) {
+    public String forumPage(Principal auth, @RequestParam(required = false) String cursor, Model model) {
         if (auth != null) {
             User userDB = userService.findByUsername(auth.getName());
 
@@ -40,9 +49,10 @@ public class ForumController {
             }
         }
 
-        List<ForumPost> posts = forumService.findAll();
+        CursorPage<ForumPostSummary> page = forumService.getFeed(cursor, FORUM_PAGE_SIZE);
 
-        model.addAttribute("posts", posts);
+        model.addAttribute("posts", page.getItems());
+        model.addAttribute("nextCursor", page.getNextCursor());
         model.addAttribute("user", auth);
 
         return "sections/forum/forum";
@@ -70,9 +80,8 @@ public class ForumController {
             return "redirect:/forum";
         }
 
-        if (auth != null && !post.getViewSet().contains(auth.getName())) {
-            post.getViewSet().add(auth.getName());
-            forumService.save(post);
+        if (auth != null) {
+            forumViewService.addView(post.getKey(), auth.getName());
         }
 
         model.addAttribute("userDB", userService.findByUsername(auth != null ? auth.getName() : null));
@@ -1,8 +1,10 @@
 package com.moople.gitpals.MainApplication.controller;
 
+import com.moople.gitpals.MainApplication.model.CursorPage;
 import com.moople.gitpals.MainApplication.model.GlobalMessage;
 import com.moople.gitpals.MainApplication.model.KeyStorage;
 import com.moople.gitpals.MainApplication.model.Project;
+import com.moople.gitpals.MainApplication.model.UnreadCounter;
 import com.moople.gitpals.MainApplication.model.User;
 import com.moople.gitpals.MainApplication.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.servlet.http.HttpSession;
@@ -38,6 +41,9 @@ public class IndexController {
     @Autowired
     private GlobalMessageService globalMessageService;
 
+    @Autowired
+    private CounterService counterService;
+
     @GetMapping("/")
     public String index() {
         return "redirect:/page/1";
@@ -47,10 +53,16 @@ public class IndexController {
      * This request is handled when user opens index page
      * Add attributes about user and later display them on the page
      *
+     * @param cursor is a token of the previous page, so the next page continues right after it
      * @return html index page with a list of projects and TECHS
      */
     @GetMapping("/page/{page}")
-    public String indexPage(OAuth2Authentication auth, Model model, RedirectAttributes redirectAttributes, @PathVariable(value = "page", required = false) int page) {
+    public String indexPage(
+            OAuth2Authentication auth,
+            Model model,
+            RedirectAttributes redirectAttributes,
+            @PathVariable(value = "page", required = false) int page,
+            @RequestParam(value = "cursor", required = false) String cursor) {
 
         int numberOfPages = indexService.getNumberOfPages();
 
@@ -107,17 +119,21 @@ public class IndexController {
             indexService.checkIfDataHasChanged(userDB, properties);
 
             model.addAttribute("userDB", userDB);
-            model.addAttribute("unreadMessages", indexService.countUnreadMessages(userDB));
+            UnreadCounter unreadCounter = counterService.get(userDB.getUsername());
+
+            model.addAttribute("unreadMessages", unreadCounter.getMessages());
+            model.addAttribute("unreadNotifications", unreadCounter.getNotifications());
         }
 
-        List<Project> projects = indexService.getProjectsOnPage(page);
+        CursorPage<Project> projects = indexService.getProjectsOnPage(page, cursor);
 
         List<GlobalMessage> globalMessages = globalMessageService.findAll();
         if (globalMessages.size() != 0) {
             model.addAttribute("globalMessage", globalMessages.get(0));
         }
 
-        model.addAttribute("projects", projects);
+        model.addAttribute("projects", projects.getItems());
+        model.addAttribute("nextCursor", projects.getNextCursor());
         model.addAttribute("pagesLength", numberOfPages);
         model.addAttribute("page", page);
 
@@ -1,25 +1,32 @@
 package com.moople.gitpals.MainApplication.controller;
 
+import com.moople.gitpals.MainApplication.configuration.StompAuthenticationInterceptor;
+import com.moople.gitpals.MainApplication.model.CursorPage;
+import com.moople.gitpals.MainApplication.model.DialogSummary;
 import com.moople.gitpals.MainApplication.model.Message;
-import com.moople.gitpals.MainApplication.model.Pair;
 import com.moople.gitpals.MainApplication.model.User;
-import com.moople.gitpals.MainApplication.repository.KeyStorageRepository;
+import com.moople.gitpals.MainApplication.service.ConversationService;
+import com.moople.gitpals.MainApplication.service.CounterService;
+import com.moople.gitpals.MainApplication.service.DialogSummaryService;
+import com.moople.gitpals.MainApplication.service.KeyStorageService;
+import com.moople.gitpals.MainApplication.service.MessagePersistenceService;
+import com.moople.gitpals.MainApplication.service.PresenceService;
 import com.moople.gitpals.MainApplication.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.messaging.simp.user.SimpUserRegistry;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Controller
 public class MessageController {
@@ -28,17 +35,39 @@ public class MessageController {
     private UserService userService;
 
     @Autowired
-    private KeyStorageRepository keyStorage;
+    private KeyStorageService keyStorageService;
 
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
-    private SimpUserRegistry userRegistry;
+    private PresenceService presenceService;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private MessagePersistenceService messagePersistenceService;
+
+    @Autowired
+    private DialogSummaryService dialogSummaryService;
+
+    // Users get messages at /user/queue/messages, /topic/messages/{key} is only used if it is turned on for old clients
+    @Value("${gitpals.messages.legacy-key-topics:false}")
+    private boolean legacyKeyTopics;
+
+    private final String MESSAGES_QUEUE = "/queue/messages";
+
+    // Number of messages shown when a dialog is opened and loaded each time user scrolls to earlier messages
+    private final int HISTORY_PAGE_SIZE = 30;
+    private final int MAX_HISTORY_LIMIT = 100;
 
     /**
      * This request is handled when user wants to see their messages
-     * All the messages are added to model and sent to user's page
+     * Dialog summaries (the most recent first) are added to model and sent to user's page, messages themselves are not loaded
      *
      * @return html page with users' messages
      */
@@ -53,9 +82,15 @@ public class MessageController {
                 return "sections/users/banned";
             }
 
-            Map<String, Pair<Integer, List<Message>>> dialogs = userDB.getDialogs();
+            // Messages that are still stored inside the user document are moved to the conversation store first
+            conversationService.migrate(userDB);
+
+            List<DialogSummary> dialogs = dialogSummaryService.getDialogs(userDB);
 
-            model.addAttribute("userMessages", dialogs);
+            model.addAttribute("dialogs", dialogs);
+            model.addAttribute("onlineUsers", presenceService.getOnlineStatuses(dialogs.stream()
+                    .map(DialogSummary::getPartner)
+                    .collect(Collectors.toList())));
 
             return "sections/users/viewMessages";
         }
@@ -101,71 +136,97 @@ public class MessageController {
 
         User user = userService.findByUsername(auth.getName());
 
-        Pair<Integer, List<Message>> pair = user.getDialogs()
-                .getOrDefault(name, new Pair<>(0, new ArrayList<>()));
-
-        pair.setKey(0);
+        conversationService.migrate(user);
+        counterService.resetDialog(user.getUsername(), name);
 
-        userService.save(user);
+        // Only the newest messages are shown, earlier ones are loaded on demand
+        CursorPage<Message> history = conversationService.getHistory(user.getUsername(), name, null, HISTORY_PAGE_SIZE);
 
         // Before user gets messages, they should be decrypted, sending a key personally to a user is unsafe
-        model.addAttribute("messages", pair.getValue());
+        model.addAttribute("messages", history.getItems());
+        model.addAttribute("historyCursor", history.getNextCursor());
 
         model.addAttribute("senderName", user.getUsername());
         model.addAttribute("recipientName", name);
-        model.addAttribute("key", keyStorage.findByUsername(auth.getName()).getKey());
 
         return "sections/users/dialog";
     }
 
+    /**
+     * This function returns earlier messages of a dialog, it is called when user wants to see older messages
+     *
+     * @param name   is a username of a person user talks to
+     * @param cursor is a token returned along with the previous messages
+     * @param limit  is a maximum number of messages returned
+     * @param auth   is a current user's authentication
+     * @return messages sent before the cursor (the oldest go first) and a cursor for even earlier messages
+     */
+    @GetMapping(value = "/dialogs/{name}/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public CursorPage<Message> dialogHistory(@PathVariable String name,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "30") int limit,
+                                             Principal auth) {
+        if (auth == null || userService.findByUsername(auth.getName()).isBanned()) {
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
+
+        return conversationService.getHistory(auth.getName(), name, cursor, Math.min(Math.max(limit, 1), MAX_HISTORY_LIMIT));
+    }
+
     /**
      * This function is responsible for a sending messages in realtime
+     * The message is delivered first, it is stored in the database in the background, so the sender doesn't wait for it
+     * The sender is the user who opened the chat connection, whatever author the message says it has
      *
-     * @param message is a message a user wants to send to someone
-     * @return a message object and send it to to the recipient
+     * Nothing is returned, a returned message would be broadcast to /topic/messageTransmit, where anyone could read it
+     *
+     * @param message  is a message a user wants to send to someone
+     * @param accessor contains attributes of the sender's chat session
      */
     @MessageMapping("/messageTransmit")
-    public Message message(Message message) {
+    public void message(Message message, SimpMessageHeaderAccessor accessor) {
 
-        User sender = userService.findByUsername(message.getAuthor());
-        User recipient = userService.findByUsername(message.getRecipient());
+        Map<String, Object> session = accessor.getSessionAttributes();
 
-        // Message destination includes the user's personal key, so the message goes to the right person
-        String senderDestination = "/topic/messages/" + keyStorage.findByUsername(sender.getUsername()).getKey();
-        String recipientDestination = "/topic/messages/" + keyStorage.findByUsername(recipient.getUsername()).getKey();
+        // Sessions that were not authenticated when they connected can't send messages
+        if (session == null || session.get(StompAuthenticationInterceptor.USERNAME_ATTRIBUTE) == null) {
+            return;
+        }
 
-        // Send message to both sender & recipient
-        messagingTemplate.convertAndSend(recipientDestination, message);
-        messagingTemplate.convertAndSend(senderDestination, message);
+        message.setAuthor((String) session.get(StompAuthenticationInterceptor.USERNAME_ATTRIBUTE));
+        message.setTimeStamp(System.currentTimeMillis());
 
-        // If recipient has a dialog page opened, it means they instantly read the new message (marked as 'read')
-        // If recipient is not online or on the dialog page right now, the message will be marked as 'unread'
-        boolean isRecipientPresent = userRegistry.findSubscriptions(subscription -> subscription
-                .getDestination().equals(recipientDestination)).size() != 0;
+        String recipientKey = keyStorageService.findKey(message.getRecipient());
 
-        // The user who sends the message has it always marked as 'read', since it is outgoing
-        Pair<Integer, List<Message>> pair = sender.getDialogs()
-                .getOrDefault(recipient.getUsername(), new Pair<>(0, new ArrayList<>()));
+        // Only registered users have keys, a message to someone who doesn't exist goes nowhere
+        if (recipientKey == null) {
+            return;
+        }
 
-        pair.getValue().add(message);
-        sender.getDialogs().put(recipient.getUsername(), pair);
+        // Send message to both sender & recipient, only their own sessions get it
+        messagingTemplate.convertAndSendToUser(message.getRecipient(), MESSAGES_QUEUE, message);
+        messagingTemplate.convertAndSendToUser(message.getAuthor(), MESSAGES_QUEUE, message);
 
-        userService.save(sender);
+        // If recipient has the dialog with the sender opened, it means they instantly read the new message (marked as 'read')
+        // If recipient is not online or has another dialog opened, the message will be marked as 'unread'
+        // The user who sends the message has it always marked as 'read', since it is outgoing
+        boolean isRecipientPresent = presenceService.isSubscribed(
+                message.getRecipient(),
+                PresenceService.dialogDestination("/user" + MESSAGES_QUEUE, message.getAuthor())
+        );
 
-        // If recipient has the dialog page opened, the message is marked as 'read' instantly
-        // If recipient is not on a dialog page, the message is marked as 'unread'
+        if (legacyKeyTopics) {
+            // Legacy destination includes the user's personal key, so the message goes to the right person
+            String senderDestination = "/topic/messages/" + session.get(StompAuthenticationInterceptor.KEY_ATTRIBUTE);
+            String recipientDestination = "/topic/messages/" + recipientKey;
 
-        Pair<Integer, List<Message>> pair2 = recipient.getDialogs()
-                .getOrDefault(sender.getUsername(), new Pair<>(0, new ArrayList<>()));
-        pair2.getValue().add(message);
+            messagingTemplate.convertAndSend(recipientDestination, message);
+            messagingTemplate.convertAndSend(senderDestination, message);
 
-        if (!isRecipientPresent) {
-            pair2.setKey(pair2.getKey() + 1);
+            isRecipientPresent = isRecipientPresent || presenceService.isSubscribed(recipientDestination);
         }
 
-        recipient.getDialogs().put(sender.getUsername(), pair2);
-        userService.save(recipient);
-
-        return message;
+        messagePersistenceService.submit(message, !isRecipientPresent);
     }
-}
\ No newline at end of file
+}
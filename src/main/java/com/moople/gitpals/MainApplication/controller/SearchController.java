@@ -1,6 +1,7 @@
 package com.moople.gitpals.MainApplication.controller;
 
 import com.moople.gitpals.MainApplication.model.ForumPost;
+import com.moople.gitpals.MainApplication.model.MatchMode;
 import com.moople.gitpals.MainApplication.model.Project;
 import com.moople.gitpals.MainApplication.model.User;
 import com.moople.gitpals.MainApplication.service.ForumService;
@@ -141,6 +142,7 @@ public class SearchController {
      * They will be sorted and displayed
      *
      * @param techs              is a list of technologies checkboxes user select manually
+     * @param mode               is ANY if a project should have at least one of technologies, ALL if all of them
      * @param model              will contains results of the search
      * @param auth               is user's authentication object
      * @param redirectAttributes is responsible for redirecting user back if no technologies are given
@@ -149,6 +151,7 @@ public class SearchController {
     @PostMapping("/matchProjectsByTechnologies")
     public String sortProjectsByTechnologies(
             @RequestParam(name = "tech", required = false) List<String> techs,
+            @RequestParam(name = "mode", defaultValue = "ANY") MatchMode mode,
             Model model,
             Principal auth,
             RedirectAttributes redirectAttributes
@@ -170,9 +173,9 @@ public class SearchController {
                 .filter(s -> !s.trim().equals(""))
                 .collect(Collectors.toList());
 
-        Set<String> matchProjects = projectService.matchProjectsByTechnologies(techs)
+        List<String> matchProjects = projectService.matchProjectsByTechnologies(techs, mode)
                 .stream()
-                .map(Project::getTitle).collect(Collectors.toSet());
+                .map(Project::getTitle).collect(Collectors.toList());
 
         model.addAttribute("match_projects", matchProjects);
 
@@ -183,6 +186,7 @@ public class SearchController {
      * This function returns a list of projects with roles specified by a user
      *
      * @param roles              is a list of roles specified by a user
+     * @param mode               is ANY if a project should require at least one of roles, ALL if all of them
      * @param model              will contains results of the search
      * @param auth               is user's authentication object
      * @param redirectAttributes is responsible for redirecting user back if no technologies are given
@@ -191,6 +195,7 @@ public class SearchController {
     @PostMapping("/matchProjectsByRoles")
     public String matchProjectsByRoles(
             @RequestParam(name = "role", required = false) List<String> roles,
+            @RequestParam(name = "mode", defaultValue = "ANY") MatchMode mode,
             Model model,
             Principal auth,
             RedirectAttributes redirectAttributes
@@ -212,9 +217,9 @@ public class SearchController {
                 .filter(s -> !s.trim().equals(""))
                 .collect(Collectors.toList());
 
-        Set<String> matchProjects = projectService.matchProjectsByRoles(roles)
+        List<String> matchProjects = projectService.matchProjectsByRoles(roles, mode)
                 .stream()
-                .map(Project::getTitle).collect(Collectors.toSet());
+                .map(Project::getTitle).collect(Collectors.toList());
 
         model.addAttribute("match_projects", matchProjects);
 
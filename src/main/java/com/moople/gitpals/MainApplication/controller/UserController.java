@@ -1,7 +1,11 @@
 package com.moople.gitpals.MainApplication.controller;
 
+import com.moople.gitpals.MainApplication.model.CursorPage;
+import com.moople.gitpals.MainApplication.model.Notification;
 import com.moople.gitpals.MainApplication.model.User;
 import com.moople.gitpals.MainApplication.repository.ProjectRepository;
+import com.moople.gitpals.MainApplication.service.NotificationService;
+import com.moople.gitpals.MainApplication.service.PresenceService;
 import com.moople.gitpals.MainApplication.service.UserService;
 import com.moople.gitpals.MainApplication.tools.Encrypt;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +30,14 @@ public class UserController {
     @Autowired
     private ProjectRepository projectRepository;
 
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    private final int NOTIFICATIONS_PAGE_SIZE = 30;
+
     /**
      * This request is handled when user opens their dashboard page
      * Add attributes about user and later display them on the page
@@ -80,6 +92,7 @@ public class UserController {
 
             model.addAttribute("LoggedUser", auth != null ? auth.getName() : null);
             model.addAttribute("UserObject", userDB);
+            model.addAttribute("isOnline", presenceService.isOnline(userDB.getUsername()));
 
             return "sections/users/userDashboard";
         } else {
@@ -91,12 +104,15 @@ public class UserController {
     /**
      * This request redirect user to their notification page where they can see all the notifications
      *
-     * @param auth  is a user's authentication object
-     * @param model is where the notification list is put so it would be displayed on the user's page
+     * Notifications are shown page by page, the newest first
+     *
+     * @param auth   is a user's authentication object
+     * @param cursor is a token of the previous page, absent for the first page
+     * @param model  is where the notification list is put so it would be displayed on the user's page
      * @return notification page
      */
     @GetMapping("/notifications")
-    public String openNotificationsPage(Principal auth, Model model) {
+    public String openNotificationsPage(Principal auth, @RequestParam(required = false) String cursor, Model model) {
 
         User userDB = userService.findByUsername(auth.getName());
 
@@ -106,12 +122,13 @@ public class UserController {
             return "sections/users/banned";
         }
 
-        if (userDB.getNotifications().getKey() != 0) {
-            userDB.getNotifications().setKey(0);
-            userService.save(userDB);
-        }
+        notificationService.migrate(userDB);
+        notificationService.markAllAsSeen(userDB.getUsername());
 
-        model.addAttribute("notifications", userDB.getNotifications().getValue());
+        CursorPage<Notification> page = notificationService.getPage(userDB.getUsername(), cursor, NOTIFICATIONS_PAGE_SIZE);
+
+        model.addAttribute("notifications", page.getItems());
+        model.addAttribute("nextCursor", page.getNextCursor());
 
         return "sections/users/notifications";
     }
@@ -125,7 +142,7 @@ public class UserController {
      */
     @PostMapping("/removeNotification")
     public String removeNotification(Principal auth, @RequestParam String notificationKey) {
-        if (userService.removeNotification(auth.getName(), notificationKey)) {
+        if (notificationService.remove(auth.getName(), notificationKey)) {
             return "redirect:/notifications";
         }
 
@@ -141,11 +158,13 @@ public class UserController {
      */
     @PostMapping("/removeAllNotifications")
     public String removeAllNotifications(Principal auth) {
-        if (userService.removeAllNotifications(auth.getName())) {
-            return "redirect:/notifications";
+        if (auth == null) {
+            return "redirect:/";
         }
 
-        return "redirect:/";
+        notificationService.removeAll(auth.getName());
+
+        return "redirect:/notifications";
     }
 
     /**
@@ -1,15 +1,23 @@
 package com.moople.gitpals.MainApplication.controller.api;
 
 import com.moople.gitpals.MainApplication.model.Response;
+import com.moople.gitpals.MainApplication.service.ConversationService;
 import com.moople.gitpals.MainApplication.service.ForumService;
+import com.moople.gitpals.MainApplication.service.ForumViewService;
 import com.moople.gitpals.MainApplication.service.KeyStorageService;
+import com.moople.gitpals.MainApplication.service.NotificationService;
+import com.moople.gitpals.MainApplication.service.ProjectService;
+import com.moople.gitpals.MainApplication.service.TimestampMigrationService;
 import com.moople.gitpals.MainApplication.service.UserService;
+import com.moople.gitpals.MainApplication.service.WebSocketSessionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -22,11 +30,26 @@ public class AdminAPI {
     private ForumService forumService;
 
     @Autowired
-    private ForumService projectService;
+    private ProjectService projectService;
 
     @Autowired
     private KeyStorageService keyStorageService;
 
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private WebSocketSessionService webSocketSessionService;
+
+    @Autowired
+    private TimestampMigrationService timestampMigrationService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private ForumViewService forumViewService;
+
     /**
      * This function is only for admin
      * It performs some manipulations with user DB
@@ -48,4 +71,134 @@ public class AdminAPI {
 
         return Response.OK;
     }
-}
\ No newline at end of file
+
+    /**
+     * This function is only for admin
+     * It sets appliedUsersCount of projects saved before it existed, the project feed is sorted by it
+     * The count is set on save, so every project is just saved again
+     *
+     * @param admin is an admin authentication
+     * @return a response whether projects were updated
+     */
+    @GetMapping("/backfillProjectCounts")
+    public Response backfillProjectCounts(Principal admin) {
+        if (admin == null || !userService.findByUsername(admin.getName()).isAdmin()) {
+            return Response.FAILED;
+        }
+
+        projectService.findAll().forEach(project -> projectService.save(project));
+
+        return Response.OK;
+    }
+
+    /**
+     * This function is only for admin
+     * It sets commentCount of forum posts saved before it existed, the forum list shows it instead of loading comments
+     * The count is set on save, so every post is just saved again
+     *
+     * @param admin is an admin authentication
+     * @return a response whether posts were updated
+     */
+    @GetMapping("/backfillForumCommentCounts")
+    public Response backfillForumCommentCounts(Principal admin) {
+        if (admin == null || !userService.findByUsername(admin.getName()).isAdmin()) {
+            return Response.FAILED;
+        }
+
+        forumService.findAll().forEach(post -> forumService.save(post));
+
+        return Response.OK;
+    }
+
+    /**
+     * This function is only for admin
+     * It moves messages of all users from user documents to the conversation store (messages collection)
+     * Users are migrated lazily when they open their dialogs too, this function just does it for everyone at once
+     *
+     * @param admin is an admin authentication
+     * @return a response whether messages were migrated
+     */
+    @GetMapping("/migrateMessages")
+    public Response migrateMessages(Principal admin) {
+        if (admin == null || !userService.findByUsername(admin.getName()).isAdmin()) {
+            return Response.FAILED;
+        }
+
+        conversationService.migrateAll();
+
+        return Response.OK;
+    }
+
+    /**
+     * This function is only for admin
+     * It moves notifications of all users from user documents to the notifications collection
+     * Users are migrated lazily when they open their notifications too, this function just does it for everyone at once
+     *
+     * @param admin is an admin authentication
+     * @return a response whether notifications were migrated
+     */
+    @GetMapping("/migrateNotifications")
+    public Response migrateNotifications(Principal admin) {
+        if (admin == null || !userService.findByUsername(admin.getName()).isAdmin()) {
+            return Response.FAILED;
+        }
+
+        notificationService.migrateAll();
+
+        return Response.OK;
+    }
+
+    /**
+     * This function is only for admin
+     * It converts timestamps of forum posts and messages that are still stored as strings
+     * The migration runs on every start anyway, this function is for running it again without a restart
+     *
+     * @param admin is an admin authentication
+     * @return a response whether timestamps were converted
+     */
+    @GetMapping("/migrateTimestamps")
+    public Response migrateTimestamps(Principal admin) {
+        if (admin == null || !userService.findByUsername(admin.getName()).isAdmin()) {
+            return Response.FAILED;
+        }
+
+        timestampMigrationService.migrate();
+
+        return Response.OK;
+    }
+
+    /**
+     * This function is only for admin
+     * It moves view sets of forum posts to the views collection
+     * The migration runs on every start anyway, this function is for running it again without a restart
+     *
+     * @param admin is an admin authentication
+     * @return a response whether views were moved
+     */
+    @GetMapping("/migrateViews")
+    public Response migrateViews(Principal admin) {
+        if (admin == null || !userService.findByUsername(admin.getName()).isAdmin()) {
+            return Response.FAILED;
+        }
+
+        forumViewService.migrate();
+
+        return Response.OK;
+    }
+
+    /**
+     * This function is only for admin
+     * It returns websocket statistics: open sessions, evicted slow clients and queue sizes of the chat thread pools
+     *
+     * @param admin is an admin authentication
+     * @return map of statistics, empty if the user is not an admin
+     */
+    @GetMapping("/websocketStats")
+    public Map<String, Object> websocketStats(Principal admin) {
+        if (admin == null || !userService.findByUsername(admin.getName()).isAdmin()) {
+            return new HashMap<>();
+        }
+
+        return webSocketSessionService.getStats();
+    }
+}
@@ -2,10 +2,13 @@ package com.moople.gitpals.MainApplication.controller.api;
 
 import com.moople.gitpals.MainApplication.configuration.JWTUtil;
 import com.moople.gitpals.MainApplication.model.Comment;
+import com.moople.gitpals.MainApplication.model.CursorPage;
 import com.moople.gitpals.MainApplication.model.ForumPost;
+import com.moople.gitpals.MainApplication.model.ForumPostSummary;
 import com.moople.gitpals.MainApplication.model.Response;
 import com.moople.gitpals.MainApplication.model.User;
 import com.moople.gitpals.MainApplication.service.ForumService;
+import com.moople.gitpals.MainApplication.service.ForumViewService;
 import com.moople.gitpals.MainApplication.service.UserService;
 import com.moople.gitpals.MainApplication.tools.Data;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,15 +29,56 @@ public class ForumAPIController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ForumViewService forumViewService;
+
     @Autowired
     private JWTUtil jwtUtil;
 
+    private final int MAX_POSTS_LIMIT = 100;
+
     /**
+     * This function returns short versions of forum posts portion by portion, the newest first
+     * Use /getForumPostById/{key} or the post page to load a whole post
+     *
+     * @param cursor is a token returned with the previous portion, empty to start from the beginning
+     * @param limit  is a number of posts in a portion
+     * @return post summaries along with the cursor for the next portion (null if there is nothing left)
+     */
+    @GetMapping(value = "/feed", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CursorPage<ForumPostSummary> getFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return forumService.getFeed(cursor, Math.min(Math.max(limit, 1), MAX_POSTS_LIMIT));
+    }
+
+    /**
+     * Loads whole posts with content and comments, /feed should be used to show a list of posts
+     *
      * @return all forum posts fetched from the database
      */
     @GetMapping(value = "/getAll", produces = MediaType.APPLICATION_JSON_VALUE)
     public List<ForumPost> getAll() {
-        return forumService.findAll();
+        List<ForumPost> posts = forumService.findAll();
+        forumViewService.fillViews(posts);
+
+        return posts;
+    }
+
+    /**
+     * This function returns forum posts published in a period of time, the newest go first
+     * Next page is requested with 'before' set to the timestamp of the last post received
+     *
+     * @param since  is a time (epoch ms) after which posts were published
+     * @param before is a time (epoch ms) before which posts were published
+     * @param limit  is a maximum number of posts returned
+     * @return list of forum posts
+     */
+    @GetMapping(value = "/getPosts", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<ForumPost> getPosts(@RequestParam(required = false) Long since,
+                                    @RequestParam(required = false) Long before,
+                                    @RequestParam(defaultValue = "20") int limit) {
+        return forumService.findPublishedBetween(since, before, Math.min(Math.max(limit, 1), MAX_POSTS_LIMIT));
     }
 
     /**
@@ -49,10 +93,10 @@ public class ForumAPIController {
     }
 
     /**
-     * This function adds a user to a forum post's view set if user has not yet seen the post
+     * This function counts a view of a forum post by the user, every user is counted once (the endpoint name is kept for existing clients)
      *
      * @param data contains information about the user (jwt) and forum post key
-     * @return response if user has been added to a view set successfully
+     * @return response if the view has been counted
      */
     @PostMapping(value = "/addUserToViewSet", produces = MediaType.APPLICATION_JSON_VALUE)
     public Response addUserToViewSet(@RequestBody Map<String, String> data) {
@@ -66,8 +110,7 @@ public class ForumAPIController {
             return Response.FAILED;
         }
 
-        post.getViewSet().add(user.getUsername());
-        forumService.save(post);
+        forumViewService.addView(post.getKey(), user.getUsername());
 
         return Response.OK;
     }
@@ -90,9 +133,11 @@ public class ForumAPIController {
         }
 
         ForumPost post = new ForumPost(user.getUsername(), title, description);
-        post.getViewSet().add(user.getUsername());
         forumService.save(post);
 
+        forumViewService.addView(post.getKey(), user.getUsername());
+        post.setViews(1);
+
         return post;
     }
 
@@ -3,10 +3,13 @@ package com.moople.gitpals.MainApplication.controller.api;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.moople.gitpals.MainApplication.configuration.JWTUtil;
 import com.moople.gitpals.MainApplication.model.Comment;
+import com.moople.gitpals.MainApplication.model.CursorPage;
+import com.moople.gitpals.MainApplication.model.FeedOrder;
 import com.moople.gitpals.MainApplication.model.Project;
 import com.moople.gitpals.MainApplication.model.Response;
 import com.moople.gitpals.MainApplication.model.User;
 import com.moople.gitpals.MainApplication.service.ProjectService;
+import com.moople.gitpals.MainApplication.service.StatisticsService;
 import com.moople.gitpals.MainApplication.service.UserService;
 import com.moople.gitpals.MainApplication.tools.Data;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,11 +31,16 @@ public class ProjectAPIController {
     @Autowired
     private ProjectService projectService;
 
+    @Autowired
+    private StatisticsService statisticsService;
+
     @Autowired
     private JWTUtil jwtUtil;
 
     private ObjectMapper mapper = new ObjectMapper();
 
+    private final int MAX_FEED_LIMIT = 50;
+
     /**
      * This function returns an object fetched from the database by its title
      *
@@ -69,13 +77,29 @@ public class ProjectAPIController {
         return projectService.findAll();
     }
 
+    /**
+     * This function returns projects portion by portion, it is used for infinite scroll
+     *
+     * @param order  is the way projects are sorted (NEWEST or MOST_APPLIED)
+     * @param cursor is a token returned with the previous portion, empty to start from the beginning
+     * @param limit  is a number of projects in a portion
+     * @return projects along with the cursor for the next portion (null if there is nothing left)
+     */
+    @GetMapping(value = "/feed", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CursorPage<Project> getFeed(
+            @RequestParam(defaultValue = "NEWEST") FeedOrder order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return projectService.getFeed(order, cursor, Math.min(Math.max(limit, 1), MAX_FEED_LIMIT));
+    }
+
     /**
      * @return total number of projects created on GitPals
      */
     @GetMapping(value = "/getNumberOfProjects", produces = MediaType.APPLICATION_JSON_VALUE)
     public Map<String, Integer> getNumberOfProjects() {
         Map<String, Integer> map = new HashMap<>();
-        map.put("numberOfProjects", projectService.findAll().size());
+        map.put("numberOfProjects", (int) statisticsService.getNumberOfProjects());
 
         return map;
     }
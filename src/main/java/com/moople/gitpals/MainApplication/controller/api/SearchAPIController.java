@@ -1,16 +1,21 @@
 package com.moople.gitpals.MainApplication.controller.api;
 
 import com.moople.gitpals.MainApplication.model.ForumPost;
+import com.moople.gitpals.MainApplication.model.MatchMode;
 import com.moople.gitpals.MainApplication.model.Project;
+import com.moople.gitpals.MainApplication.model.SearchResults;
 import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.model.UserProfile;
 import com.moople.gitpals.MainApplication.service.ForumService;
 import com.moople.gitpals.MainApplication.service.ProjectService;
+import com.moople.gitpals.MainApplication.service.SuggestionService;
 import com.moople.gitpals.MainApplication.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -27,6 +32,56 @@ public class SearchAPIController {
     @Autowired
     private ForumService forumService;
 
+    @Autowired
+    private SuggestionService suggestionService;
+
+    private final int MAX_SUGGESTIONS = 20;
+    private final int MAX_PAGE_SIZE = 50;
+
+    /**
+     * This function searches projects by words in their titles and descriptions
+     *
+     * @param query is a text user looks for
+     * @param page  is a page number, starting from 0
+     * @param size  is a number of projects on a page
+     * @return projects on the requested page, the most relevant go first
+     */
+    @GetMapping(value = "/projects", produces = MediaType.APPLICATION_JSON_VALUE)
+    public SearchResults<Project> searchProjects(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return projectService.searchProjects(query, Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+
+    /**
+     * This function searches forum posts by words in their titles and content
+     *
+     * @param query is a text user looks for
+     * @param page  is a page number, starting from 0
+     * @param size  is a number of posts on a page
+     * @return forum posts on the requested page, the most relevant go first
+     */
+    @GetMapping(value = "/forumPosts", produces = MediaType.APPLICATION_JSON_VALUE)
+    public SearchResults<ForumPost> searchForumPosts(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return forumService.searchForumPosts(query, Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+
+    /**
+     * This function returns autocomplete suggestions for whatever user is typing into a search field
+     *
+     * @param prefix is what user has typed so far
+     * @param limit  is a maximum number of suggestions of each kind
+     * @return map of usernames, project titles and tags that start with the prefix, the most popular go first
+     */
+    @GetMapping(value = "/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, List<String>> suggest(@RequestParam String prefix, @RequestParam(defaultValue = "5") int limit) {
+        return suggestionService.suggest(prefix, Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
+    }
+
     /**
      * This function returns a list of users whose username matches the input
      *
@@ -73,39 +128,34 @@ public class SearchAPIController {
      * This function returns a list of projects with technologies specified by a user
      *
      * @param technologies is a list of technologies project should contain
-     * @return list of projects whose technologies match the user's input
+     * @param mode         is ANY if a project should have at least one of technologies, ALL if all of them
+     * @return list of projects whose technologies match the user's input, projects with more matches go first
      */
     @PostMapping(value = "/matchProjectsByTechnologies", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Project> matchProjectsByTechnologies(@RequestBody List<String> technologies) {
-        return projectService.matchProjectsByTechnologies(technologies);
+    public List<Project> matchProjectsByTechnologies(@RequestBody List<String> technologies, @RequestParam(defaultValue = "ANY") MatchMode mode) {
+        return projectService.matchProjectsByTechnologies(technologies, mode);
     }
 
     /**
      * This function returns a list of projects with roles specified by a user
      *
      * @param roles is a list of required roles project should contain
-     * @return list of projects whose required roles match the user's input
+     * @param mode  is ANY if a project should require at least one of roles, ALL if all of them
+     * @return list of projects whose required roles match the user's input, projects with more matches go first
      */
     @PostMapping(value = "/matchProjectsByRoles", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Project> matchProjectsByRoles(@RequestBody List<String> roles) {
-        return projectService.matchProjectsByRoles(roles);
+    public List<Project> matchProjectsByRoles(@RequestBody List<String> roles, @RequestParam(defaultValue = "ANY") MatchMode mode) {
+        return projectService.matchProjectsByRoles(roles, mode);
     }
 
     /**
      * This function returns a list of users that know skills specified by whoever calls this request
      *
      * @param skills is a list of skills (like java/c/python) that users can know
-     * @return list of users that know all the skills given in a body of this request
+     * @return profiles of users that know any of the skills given in a body of this request, best matches go first
      */
     @PostMapping(value = "/matchUsersBySkills", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<User> matchUsersBySkills(@RequestBody List<String> skills) {
-        return userService.findBySkillList(skills)
-                .stream()
-                .map(username -> userService.findByUsername(username))
-                .peek(user -> {
-                    user.setDialogs(null);
-                    user.setNotifications(null);
-                })
-                .collect(Collectors.toList());
+    public List<UserProfile> matchUsersBySkills(@RequestBody List<String> skills) {
+        return userService.findProfilesBySkillList(skills);
     }
 }
@@ -1,15 +1,26 @@
 package com.moople.gitpals.MainApplication.controller.api;
 
 import com.moople.gitpals.MainApplication.configuration.JWTUtil;
+import com.moople.gitpals.MainApplication.model.CursorPage;
+import com.moople.gitpals.MainApplication.model.DialogSummary;
+import com.moople.gitpals.MainApplication.model.Message;
+import com.moople.gitpals.MainApplication.model.Notification;
 import com.moople.gitpals.MainApplication.model.Response;
+import com.moople.gitpals.MainApplication.model.UnreadCounter;
 import com.moople.gitpals.MainApplication.model.User;
 import com.moople.gitpals.MainApplication.repository.KeyStorageRepository;
+import com.moople.gitpals.MainApplication.service.ConversationService;
+import com.moople.gitpals.MainApplication.service.CounterService;
+import com.moople.gitpals.MainApplication.service.DialogSummaryService;
+import com.moople.gitpals.MainApplication.service.NotificationService;
+import com.moople.gitpals.MainApplication.service.PresenceService;
 import com.moople.gitpals.MainApplication.service.UserService;
 import com.moople.gitpals.MainApplication.tools.Data;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +40,23 @@ public class UserAPIController {
     @Autowired
     private JWTUtil jwtUtil;
 
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private DialogSummaryService dialogSummaryService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    private final int MAX_HISTORY_LIMIT = 100;
+
     /**
      * @return list, which contains all users registered
      */
@@ -63,6 +91,31 @@ public class UserAPIController {
         return user;
     }
 
+    /**
+     * This function tells whether a user is online (has the chat opened on any device) right now
+     *
+     * @param username is a user's username
+     * @return json object with a single 'online' field
+     */
+    @GetMapping(value = "/isOnline/{username}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Boolean> isOnline(@PathVariable String username) {
+        Map<String, Boolean> data = new HashMap<>();
+        data.put("online", presenceService.isOnline(username));
+
+        return data;
+    }
+
+    /**
+     * This function tells which users from the list are online right now, it is used to display dialog lists
+     *
+     * @param usernames is a list of usernames
+     * @return map, where key is a username and value is true if the user is online
+     */
+    @PostMapping(value = "/getOnlineStatuses", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Boolean> getOnlineStatuses(@RequestBody List<String> usernames) {
+        return presenceService.getOnlineStatuses(usernames);
+    }
+
     /**
      * This function return a user's unique key, which is used for websocket chat communication
      * This key acts as a destination (so message goes to the right person, destination is based on this key)
@@ -140,6 +193,100 @@ public class UserAPIController {
     }
 
 
+    /**
+     * This function returns messages of a dialog page by page, going from the newest to the oldest
+     *
+     * @param data is information sent from the user, which contains user's jwt, dialog name (the user they talk to),
+     *             cursor returned with the previous page (absent for the newest messages) & limit (optional)
+     * @return messages (the oldest go first) and a cursor for earlier messages, which is null if there are none
+     */
+    @PostMapping(value = "/getDialogHistory", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CursorPage<Message> getDialogHistory(@RequestBody Map<String, String> data) {
+        String jwt = data.get("jwt");
+        String dialogName = data.get("dialogName");
+
+        User user = userService.findByUsername(jwtUtil.extractUsername(jwt));
+
+        if (user == null || user.isBanned() || dialogName == null) {
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
+
+        int limit;
+        try {
+            limit = Integer.parseInt(data.getOrDefault("limit", "30"));
+        } catch (NumberFormatException e) {
+            limit = 30;
+        }
+
+        return conversationService.getHistory(user.getUsername(), dialogName, data.get("cursor"), Math.min(Math.max(limit, 1), MAX_HISTORY_LIMIT));
+    }
+
+    /**
+     * This function returns messages of a dialog sent after some time, so a client can catch up after it was offline
+     *
+     * @param data is information sent from the user, which contains user's jwt, dialog name (the user they talk to),
+     *             time (epoch ms) of the last message the client has & limit (optional)
+     * @return messages sent after that time, the oldest go first
+     */
+    @PostMapping(value = "/getDialogMessagesSince", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Message> getDialogMessagesSince(@RequestBody Map<String, String> data) {
+        String jwt = data.get("jwt");
+        String dialogName = data.get("dialogName");
+
+        User user = userService.findByUsername(jwtUtil.extractUsername(jwt));
+
+        if (user == null || user.isBanned() || dialogName == null) {
+            return new ArrayList<>();
+        }
+
+        long since;
+        int limit;
+        try {
+            since = Long.parseLong(data.getOrDefault("since", "0"));
+            limit = Integer.parseInt(data.getOrDefault("limit", "100"));
+        } catch (NumberFormatException e) {
+            return new ArrayList<>();
+        }
+
+        return conversationService.getMessagesSince(user.getUsername(), dialogName, since, Math.min(Math.max(limit, 1), MAX_HISTORY_LIMIT));
+    }
+
+    /**
+     * This function returns user's dialog list: partners, last messages and message numbers, the most recent dialogs go first
+     *
+     * @param jwt is user's jwt token
+     * @return list of dialog summaries, or an empty list if the user is not found
+     */
+    @GetMapping(value = "/getDialogs/{jwt}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<DialogSummary> getDialogs(@PathVariable String jwt) {
+        User user = userService.findByUsername(jwtUtil.extractUsername(jwt));
+
+        if (user == null || user.isBanned()) {
+            return new ArrayList<>();
+        }
+
+        conversationService.migrate(user);
+
+        return dialogSummaryService.getDialogs(user);
+    }
+
+    /**
+     * This function returns numbers of user's unread messages & notifications, so badges can be displayed
+     *
+     * @param jwt is user's jwt token
+     * @return unread counters, or an empty object if the user is not found
+     */
+    @GetMapping(value = "/getUnreadCounters/{jwt}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public UnreadCounter getUnreadCounters(@PathVariable String jwt) {
+        User user = userService.findByUsername(jwtUtil.extractUsername(jwt));
+
+        if (user == null || user.isBanned()) {
+            return new UnreadCounter();
+        }
+
+        return counterService.get(user.getUsername());
+    }
+
     /**
      * This function marks a dialog with some user as 'seen', so its won't say it has new message anymore
      *
@@ -161,13 +308,41 @@ public class UserAPIController {
             return Response.YOU_ARE_BANNED;
         }
 
-        user.getDialogs().get(dialogName).setKey(0);
-        userService.save(user);
+        counterService.resetDialog(user.getUsername(), dialogName);
 
         return Response.OK;
     }
 
 
+    /**
+     * This function returns user's notifications page by page, the newest go first
+     *
+     * @param data is information sent from the user, which contains user's jwt,
+     *             cursor returned with the previous page (absent for the newest notifications) & limit (optional)
+     * @return notifications and a cursor for older ones, which is null if there are none
+     */
+    @PostMapping(value = "/getNotifications", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CursorPage<Notification> getNotifications(@RequestBody Map<String, String> data) {
+        String jwt = data.get("jwt");
+
+        User user = userService.findByUsername(jwtUtil.extractUsername(jwt));
+
+        if (user == null || user.isBanned()) {
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
+
+        int limit;
+        try {
+            limit = Integer.parseInt(data.getOrDefault("limit", "30"));
+        } catch (NumberFormatException e) {
+            limit = 30;
+        }
+
+        notificationService.migrate(user);
+
+        return notificationService.getPage(user.getUsername(), data.get("cursor"), Math.min(Math.max(limit, 1), MAX_HISTORY_LIMIT));
+    }
+
     /**
      * This function marks all user's notifications as 'seen'
      *
@@ -188,8 +363,7 @@ public class UserAPIController {
             return Response.YOU_ARE_BANNED;
         }
 
-        user.getNotifications().setKey(0);
-        userService.save(user);
+        notificationService.markAllAsSeen(user.getUsername());
 
         return Response.OK;
     }
@@ -215,7 +389,7 @@ public class UserAPIController {
             return Response.YOU_ARE_BANNED;
         }
 
-        if (userService.removeNotification(user.getUsername(), notificationKey)) {
+        if (notificationService.remove(user.getUsername(), notificationKey)) {
             return Response.OK;
         }
 
@@ -242,10 +416,8 @@ public class UserAPIController {
             return Response.YOU_ARE_BANNED;
         }
 
-        if (userService.removeAllNotifications(user.getUsername())) {
-            return Response.OK;
-        }
+        notificationService.removeAll(user.getUsername());
 
-        return Response.USER_NOT_FOUND;
+        return Response.OK;
     }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+
+    // Is null when there is nothing left to load
+    private String nextCursor;
+}
@@ -0,0 +1,52 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A dialog as it is shown in user's dialog list: who the user talks to, the last message and message numbers
+ * Every user has a summary for each dialog, it is updated whenever a message is stored, so the list is drawn without loading any messages
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "dialogSummaries")
+@CompoundIndex(name = "owner_recent", def = "{'owner': 1, 'lastMessageAt': -1}")
+public class DialogSummary {
+
+    // owner|partner
+    @Id
+    private String id;
+
+    // Username of a user whose dialog list this summary belongs to
+    private String owner;
+
+    // Username of a person the owner talks to
+    private String partner;
+
+    // Beginning of the last message and its author
+    private String lastMessage;
+    private String lastAuthor;
+    private Date lastMessageAt;
+
+    private long totalMessages;
+    private long unreadMessages;
+
+    // Ids of the latest messages counted here, messages stored again after a crash are not counted twice
+    private List<String> appliedMessages;
+
+    public DialogSummary(String owner, String partner) {
+        this.id = id(owner, partner);
+        this.owner = owner;
+        this.partner = partner;
+    }
+
+    public static String id(String owner, String partner) {
+        return owner + "|" + partner;
+    }
+}
@@ -0,0 +1,5 @@
+package com.moople.gitpals.MainApplication.model;
+
+public enum FeedOrder {
+    NEWEST, MOST_APPLIED
+}
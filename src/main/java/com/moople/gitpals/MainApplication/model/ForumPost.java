@@ -1,13 +1,15 @@
 package com.moople.gitpals.MainApplication.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.moople.gitpals.MainApplication.tools.Encrypt;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -16,6 +18,7 @@ import java.util.Map;
 @ToString
 @NoArgsConstructor
 @Document(collection = "forumPosts")
+@CompoundIndex(name = "newest_feed", def = "{'timeStamp': -1, '_id': -1}")
 public class ForumPost {
 
     @Id
@@ -25,18 +28,31 @@ public class ForumPost {
     private String title;
     private String content;
     private String key;
-    private String timeStamp;
+
+    // Time the post was published, epoch milliseconds
+    private long timeStamp;
+
     private Map<String, Comment> comments;
+
+    // Mirrors comments.size(), so the forum list can show it without loading comments
+    private int commentCount;
+
+    // Old set of viewers, it is moved to the views collection and removed by ForumViewService.migrate
+    // It is still read, so saving a post that hasn't been migrated yet keeps its viewers, it is never sent to clients
+    @JsonIgnore
     private HashSet<String> viewSet;
 
+    // Number of users who have viewed the post, views are stored apart (see ForumViewService) and set only when posts are listed
+    @Transient
+    private long views;
+
     public ForumPost(String author, String title, String content) {
         this.author = author;
         this.title = title;
         this.content = content;
         this.key = generateKey();
-        this.timeStamp = new Date().toString();
+        this.timeStamp = System.currentTimeMillis();
 
-        this.viewSet = new HashSet<>();
         this.comments = new HashMap<>();
     }
 
@@ -0,0 +1,28 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+
+/**
+ * Short version of a forum post for the forum list, it is read from the forumPosts collection with a projection,
+ * so content and comments are never loaded for the list
+ */
+@Data
+@NoArgsConstructor
+public class ForumPostSummary {
+
+    @Id
+    private String id;
+
+    private String key;
+    private String title;
+    private String author;
+    private long timeStamp;
+    private int commentCount;
+
+    // Views are stored apart (see ForumViewService)
+    @Transient
+    private long views;
+}
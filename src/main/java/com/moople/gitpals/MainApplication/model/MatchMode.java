@@ -0,0 +1,5 @@
+package com.moople.gitpals.MainApplication.model;
+
+public enum MatchMode {
+    ANY, ALL
+}
@@ -4,17 +4,19 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
-import java.util.Date;
-
 @Data
 @NoArgsConstructor
 @ToString
 public class Message {
 
+    // Assigned when the message is accepted for storing (see PendingMessage)
+    private String id;
+
     private String author;
     private String recipient;
     private String content;
-    private String timeStamp;
+    // Time the message was sent, epoch milliseconds
+    private long timeStamp;
     private String type;
 
     public Message(String author, String recipient, String content, TYPE type) {
@@ -23,7 +25,7 @@ public class Message {
         this.content = content;
         this.type = type.toString();
 
-        this.timeStamp = new Date().toString();
+        this.timeStamp = System.currentTimeMillis();
     }
 
     public enum TYPE {
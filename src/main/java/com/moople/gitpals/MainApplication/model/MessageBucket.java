@@ -0,0 +1,42 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A piece of a conversation between two users, it holds messages sent during one period of time (see gitpals.messages.bucket-span)
+ * The bucket id is made of the conversation id and the start of the period, so a message is appended to its bucket by id
+ * So sending a message is a small write no matter how long the conversation is
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "messages")
+@CompoundIndexes({
+        @CompoundIndex(name = "conversation_buckets", def = "{'conversationId': 1, 'createdAt': 1}"),
+        @CompoundIndex(name = "conversation_recent", def = "{'conversationId': 1, 'lastMessageAt': 1}")
+})
+public class MessageBucket {
+
+    @Id
+    private String id;
+
+    // Both usernames sorted alphabetically, so both users refer to the same conversation
+    private String conversationId;
+
+    private List<Message> messages;
+    private int count;
+
+    // Start of the period the bucket holds messages for
+    private Date createdAt;
+    private Date lastMessageAt;
+
+    // Buckets imported from User.dialogs are closed, new messages never go there
+    private boolean imported;
+}
@@ -2,16 +2,63 @@ package com.moople.gitpals.MainApplication.model;
 
 import com.moople.gitpals.MainApplication.tools.Encrypt;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
+/**
+ * Every notification is a small document of its own, so sending one is a single insert
+ * Notifications expire some time after they are created, and a user keeps only a limited number of the latest ones
+ * Similar notifications that come one after another are merged into one (e.g. "12 users applied to your project")
+ */
 @Data
+@NoArgsConstructor
+@Document(collection = "notifications")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_recent", def = "{'username': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_group", def = "{'username': 1, 'groupKey': 1, 'createdAt': -1}")
+})
 public class Notification {
+
+    // Same as key
+    @Id
+    private String id;
+
+    // Username of a user who gets the notification
+    private String username;
+
     private String text;
     private String key;
 
+    // Time of the latest event, a merged notification moves up when it gets a new event
+    private Date createdAt;
+
+    // Kind and target of the events (e.g. PROJECT_APPLICATION:title), null for notifications that are never merged
+    private String groupKey;
+
+    // Number of events merged into this notification and who caused the latest of them
+    private int count = 1;
+    private String lastActor;
+
+    // Distinct users who caused the merged events, so one user doing the same thing twice is counted once
+    private List<String> actors = new ArrayList<>();
+
+    // False while a delivered notification hasn't been added to the unread counter yet, null for notifications counted when created
+    private Boolean counted;
+
+    // True once the user has opened their notifications after the latest event, a seen notification is never merged into
+    private Boolean seen;
+
     public Notification(String text) {
         this.text = text;
         this.key = Encrypt.MD5(Math.random() + new Date().getTime() + text);
+        this.id = key;
+        this.createdAt = new Date();
     }
-}
\ No newline at end of file
+}
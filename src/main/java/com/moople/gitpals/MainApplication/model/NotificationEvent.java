@@ -0,0 +1,19 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a connected user gets when they are sent a notification
+ * It has the new notification and the number of unread ones, so clients don't have to reload anything
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationEvent {
+
+    private Notification notification;
+
+    private long unreadNotifications;
+}
@@ -0,0 +1,61 @@
+package com.moople.gitpals.MainApplication.model;
+
+/**
+ * Kinds of notifications that are merged when they come one after another
+ * Format arguments are: 1 - who did it (the latest of them), 2 - title of what it was done to, 3 - number of events or users, 4 - details (e.g. comment text)
+ * Kinds that count users (e.g. applications) count every user once, however many times they did it
+ */
+public enum NotificationKind {
+    PROJECT_APPLICATION(
+            "%1$s applied to your project %2$s",
+            "%3$d users applied to your project %2$s, the latest is %1$s",
+            true
+    ),
+    PROJECT_COMMENT(
+            "%1$s has left a comment on your project %2$s: %4$s",
+            "%3$d new comments on your project %2$s, the latest by %1$s",
+            false
+    ),
+    FORUM_COMMENT(
+            "%1$s has left a comment on your forum post (%2$s) -- %4$s",
+            "%3$d new comments on your forum post (%2$s), the latest by %1$s",
+            false
+    );
+
+    private final String singleFormat;
+    private final String groupFormat;
+    private final boolean countsActors;
+
+    NotificationKind(String singleFormat, String groupFormat, boolean countsActors) {
+        this.singleFormat = singleFormat;
+        this.groupFormat = groupFormat;
+        this.countsActors = countsActors;
+    }
+
+    /**
+     * This function returns a number shown in the text of a merged notification
+     *
+     * @param notification is a merged notification
+     * @return number of distinct users for kinds that count users, number of events otherwise
+     */
+    public int count(Notification notification) {
+        if (!countsActors) {
+            return notification.getCount();
+        }
+
+        return notification.getActors() == null ? 1 : Math.max(notification.getActors().size(), 1);
+    }
+
+    /**
+     * This function returns a notification text for a number of events
+     *
+     * @param actor  is a username of a user who caused the latest event
+     * @param title  is a title of a project or a post the events are about
+     * @param count  is a number of events
+     * @param detail is a detail of the latest event, it is shown only if there is a single event
+     * @return notification text
+     */
+    public String text(String actor, String title, int count, String detail) {
+        return String.format(count > 1 ? groupFormat : singleFormat, actor, title, count, detail);
+    }
+}
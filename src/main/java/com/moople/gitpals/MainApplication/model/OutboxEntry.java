@@ -0,0 +1,41 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A notification that has to be sent to a list of users
+ * It is stored by the request that produces it and delivered later in the background, so the request doesn't wait for the delivery
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "notificationOutbox")
+public class OutboxEntry {
+
+    @Id
+    private String id;
+
+    private List<String> recipients;
+    private String text;
+    private Date createdAt;
+
+    // Number of times delivery has been started
+    private int attempts;
+
+    // The entry is taken by a dispatcher once this time comes, it is moved forward while the entry is being delivered
+    @Indexed
+    private Date nextAttemptAt;
+
+    public OutboxEntry(List<String> recipients, String text) {
+        this.recipients = recipients;
+        this.text = text;
+        this.createdAt = new Date();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
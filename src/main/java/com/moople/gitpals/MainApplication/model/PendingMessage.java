@@ -0,0 +1,35 @@
+package com.moople.gitpals.MainApplication.model;
+
+import com.moople.gitpals.MainApplication.tools.Encrypt;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A message that has been delivered to users, but hasn't been stored in the database yet
+ */
+@Data
+@NoArgsConstructor
+public class PendingMessage {
+
+    // Every document a message changes remembers this many ids of the latest messages applied to it,
+    // so a message written again after a crash is recognized and skipped
+    public static final int REMEMBERED_IDS = 100;
+
+    // Same as message id, it stays the same when the message is written again after a crash
+    private String id;
+
+    private Message message;
+
+    // True if the recipient didn't see the message when it was delivered
+    private boolean unread;
+
+    public PendingMessage(Message message, boolean unread) {
+        if (message.getId() == null) {
+            message.setId(Encrypt.MD5(message.getAuthor() + message.getRecipient() + message.getTimeStamp() + Math.random()));
+        }
+
+        this.id = message.getId();
+        this.message = message;
+        this.unread = unread;
+    }
+}
@@ -0,0 +1,27 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Views of a forum post, stored apart from the post so counting a view never rewrites the post
+ * Registers of a HyperLogLog sketch are stored as a map (register index -> rank) and updated with $max, so views are merged atomically
+ * The first viewers are kept as they are, so posts with few views have an exact count
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "postViews")
+public class PostViews {
+
+    // Same as forum post key
+    @Id
+    private String id;
+
+    private Map<String, Integer> registers;
+    private List<String> viewers;
+}
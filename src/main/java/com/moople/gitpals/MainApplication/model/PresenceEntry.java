@@ -0,0 +1,43 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A record that some user (or destination) is present on some application node
+ * Nodes refresh their records regularly, records of a node that went down are deleted by Mongo after they expire
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "presence")
+@CompoundIndex(name = "presence_lookup", def = "{'username': 1, 'destination': 1}")
+public class PresenceEntry {
+
+    @Id
+    private String id;
+
+    private String nodeId;
+
+    // Empty for anonymous subscriptions
+    private String username;
+
+    // Empty for records that only say the user is online
+    private String destination;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Date expiresAt;
+
+    public PresenceEntry(String nodeId, String username, String destination, Date expiresAt) {
+        this.id = nodeId + "|" + username + "|" + destination;
+        this.nodeId = nodeId;
+        this.username = username;
+        this.destination = destination;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -3,6 +3,7 @@ package com.moople.gitpals.MainApplication.model;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.HashMap;
@@ -13,6 +14,7 @@ import java.util.Set;
 @Data
 @NoArgsConstructor
 @Document(collection = "projects")
+@CompoundIndex(name = "most_applied_feed", def = "{'appliedUsersCount': -1, '_id': -1}")
 public class Project {
 
     @Id
@@ -27,6 +29,9 @@ public class Project {
     private Set<String> requiredRoles;
     private Map<String, Comment> comments;
 
+    // Mirrors appliedUsers.size(), so the feed can be sorted by popularity using an index
+    private int appliedUsersCount;
+
     public Project(String title, String description, String githubProjectLink, String authorName, Set<String> technologies, Set<String> requiredRoles) {
         this.title = title.trim();
         this.description = description.trim();
@@ -0,0 +1,21 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResults<T> {
+
+    // Results on the requested page, the most relevant go first
+    private List<T> items;
+
+    private int page;
+
+    // Number of results on all pages
+    private int totalResults;
+}
@@ -0,0 +1,50 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers of unread messages & notifications of a user
+ * Counters are changed by atomic updates, so the user document is never rewritten when someone sends a message
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "unreadCounters")
+public class UnreadCounter {
+
+    // Username of the counters' owner
+    @Id
+    private String username;
+
+    // Key is a username of a person the user talks to, value is a number of unread messages from them
+    private Map<String, Long> dialogs = new HashMap<>();
+
+    // Number of unread messages in all dialogs
+    private long messages;
+
+    private long notifications;
+
+    // When the user has seen their notifications last time, notifications they have seen don't get merged with new ones
+    private Date notificationsReadAt;
+
+    // Ids of the latest messages counted here, messages stored again after a crash are not counted twice
+    private List<String> appliedMessages;
+
+    public UnreadCounter(String username) {
+        this.username = username;
+    }
+
+    /**
+     * @return number of unread messages from a specific user
+     */
+    public long getUnreadMessages(String partner) {
+        return dialogs.getOrDefault(partner, 0L);
+    }
+}
@@ -0,0 +1,37 @@
+package com.moople.gitpals.MainApplication.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Public part of a user's profile, it doesn't contain dialogs, notifications or credentials
+ */
+@Data
+@NoArgsConstructor
+public class UserProfile {
+
+    private String username;
+    private String country;
+    private String bio;
+    private String githubAccountLink;
+    private String avatarURL;
+    private Set<String> skillList;
+
+    public UserProfile(User user) {
+        this.username = user.getUsername();
+        this.country = user.getCountry();
+        this.bio = user.getBio();
+        this.githubAccountLink = user.getGithubAccountLink();
+        this.avatarURL = user.getAvatarURL();
+        this.skillList = user.getSkillList();
+    }
+
+    /**
+     * @return names of User fields a profile is built from, so only they are fetched from the database
+     */
+    public static String[] fields() {
+        return new String[]{"username", "country", "bio", "githubAccountLink", "avatarURL", "skillList"};
+    }
+}
@@ -0,0 +1,397 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.CursorPage;
+import com.moople.gitpals.MainApplication.model.Message;
+import com.moople.gitpals.MainApplication.model.MessageBucket;
+import com.moople.gitpals.MainApplication.model.Pair;
+import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.service.interfaces.ConversationInterface;
+import com.moople.gitpals.MainApplication.tools.Cursor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class ConversationService implements ConversationInterface {
+
+    // Number of messages in one bucket imported from User.dialogs
+    public static final int IMPORT_BUCKET_SIZE = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Every bucket holds messages sent during this period of time (ms)
+    @Value("${gitpals.messages.bucket-span:3600000}")
+    private long bucketSpan;
+
+    /**
+     * This function returns an id of a conversation between two users
+     * It doesn't depend on who is the sender and who is the recipient
+     *
+     * @param username is a username of one user
+     * @param partner  is a username of another user
+     * @return conversation id
+     */
+    public static String conversationId(String username, String partner) {
+        return username.compareTo(partner) < 0
+                ? username + ":" + partner
+                : partner + ":" + username;
+    }
+
+    /**
+     * This function returns an id of a bucket a message goes to
+     * The id consists of the conversation id and the start of the period the message was sent in,
+     * so every message has exactly one bucket and concurrent writers never open two buckets for the same period
+     *
+     * @param conversationId is a conversation id
+     * @param bucketStart    is a start of the period (epoch ms)
+     * @return bucket id
+     */
+    public static String bucketId(String conversationId, long bucketStart) {
+        return conversationId + ":" + bucketStart;
+    }
+
+    /**
+     * @param timeStamp is a time a message was sent (epoch ms)
+     * @return start of the period the message belongs to
+     */
+    private long bucketStart(long timeStamp) {
+        return timeStamp - Math.floorMod(timeStamp, bucketSpan);
+    }
+
+    /**
+     * This function appends a message to the bucket of the conversation it belongs to
+     *
+     * @param message is a message object
+     */
+    @Override
+    public void append(Message message) {
+        appendAll(Collections.singletonList(message));
+    }
+
+    /**
+     * This function appends messages to buckets of their conversations, a bucket is chosen by the time a message was sent
+     * A bucket is created first if there is none for that period, then messages of the bucket are pushed by a single update
+     * The push is skipped if the bucket already has any of those messages, so writing the same messages again doesn't duplicate them
+     * All updates are sent in one bulk request
+     * Both users get the dialog added to their dialog lists, if it isn't there yet
+     *
+     * @param messages are message objects, in the order they were sent
+     */
+    @Override
+    public void appendAll(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        // Key is (conversation id, bucket start)
+        Map<Pair<String, Long>, List<Message>> buckets = new LinkedHashMap<>();
+        Set<Pair<String, String>> dialogs = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+
+        for (Message message : messages) {
+            long timeStamp = message.getTimeStamp() > 0 ? message.getTimeStamp() : now;
+
+            buckets.computeIfAbsent(new Pair<>(conversationId(message.getAuthor(), message.getRecipient()), bucketStart(timeStamp)), k -> new ArrayList<>())
+                    .add(message);
+
+            dialogs.add(new Pair<>(message.getAuthor(), message.getRecipient()));
+            dialogs.add(new Pair<>(message.getRecipient(), message.getAuthor()));
+        }
+
+        // Ordered, so a bucket is created before messages are pushed to it
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, MessageBucket.class);
+
+        buckets.forEach((bucket, bucketMessages) -> {
+            long lastMessageAt = bucketMessages.stream()
+                    .mapToLong(message -> message.getTimeStamp() > 0 ? message.getTimeStamp() : now)
+                    .max()
+                    .orElse(now);
+
+            String id = bucketId(bucket.getKey(), bucket.getValue());
+
+            bulk.upsert(
+                    new Query(Criteria.where("_id").is(id)),
+                    new Update()
+                            .setOnInsert("conversationId", bucket.getKey())
+                            .setOnInsert("createdAt", new Date(bucket.getValue()))
+                            .setOnInsert("count", 0)
+            );
+
+            Criteria criteria = Criteria.where("_id").is(id);
+            List<String> ids = bucketMessages.stream()
+                    .map(Message::getId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            if (!ids.isEmpty()) {
+                criteria.and("messages.id").nin(ids);
+            }
+
+            bulk.updateOne(
+                    new Query(criteria),
+                    new Update()
+                            .push("messages").each(bucketMessages.toArray())
+                            .inc("count", bucketMessages.size())
+                            .max("lastMessageAt", new Date(lastMessageAt))
+            );
+        });
+
+        bulk.execute();
+
+        BulkOperations users = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+
+        for (Pair<String, String> dialog : dialogs) {
+            String field = "dialogs." + dialog.getValue();
+
+            users.updateOne(
+                    new Query(Criteria.where("username").is(dialog.getKey()).and(field).exists(false)),
+                    new Update().set(field, new Pair<>(0, new ArrayList<Message>()))
+            );
+        }
+
+        users.execute();
+    }
+
+    /**
+     * This function returns a page of messages two users sent each other, going from the newest to the oldest
+     * The cursor points at a bucket and a position in it, messages before that position are returned next
+     * Buckets are only appended to, so positions stay valid while new messages arrive
+     *
+     * @param username is a username of one user
+     * @param partner  is a username of another user
+     * @param cursor   is a token of the previous page, the newest messages are returned if it's null
+     * @param limit    is a maximum number of messages returned
+     * @return messages (the oldest go first) along with a cursor for earlier messages, which is null if there are none
+     */
+    @Override
+    public CursorPage<Message> getHistory(String username, String partner, String cursor, int limit) {
+        String conversationId = conversationId(username, partner);
+        String[] position = Cursor.decode(cursor, 2);
+
+        MessageBucket bucket;
+        int end;
+
+        if (position == null) {
+            bucket = findOlderBucket(conversationId, null);
+            end = Integer.MAX_VALUE;
+        } else {
+            bucket = mongoTemplate.findById(position[0], MessageBucket.class);
+
+            // A cursor of some other conversation must not reveal its messages
+            if (bucket == null || !bucket.getConversationId().equals(conversationId)) {
+                return new CursorPage<>(new ArrayList<>(), null);
+            }
+
+            try {
+                end = Integer.parseInt(position[1]);
+            } catch (NumberFormatException e) {
+                return new CursorPage<>(new ArrayList<>(), null);
+            }
+        }
+
+        LinkedList<Message> messages = new LinkedList<>();
+        String nextCursor = null;
+
+        while (bucket != null) {
+            List<Message> bucketMessages = bucket.getMessages();
+            int to = Math.max(0, Math.min(end, bucketMessages.size()));
+            int from = Math.max(0, to - (limit - messages.size()));
+
+            for (int i = to - 1; i >= from; i--) {
+                messages.addFirst(bucketMessages.get(i));
+            }
+
+            if (from > 0) {
+                nextCursor = Cursor.encode(bucket.getId(), String.valueOf(from));
+                break;
+            }
+
+            bucket = findOlderBucket(conversationId, bucket);
+            end = Integer.MAX_VALUE;
+
+            if (messages.size() >= limit) {
+                nextCursor = bucket == null ? null : Cursor.encode(bucket.getId(), String.valueOf(bucket.getMessages().size()));
+                break;
+            }
+        }
+
+        return new CursorPage<>(new ArrayList<>(messages), nextCursor);
+    }
+
+    /**
+     * This function returns messages two users sent each other after some time, the oldest go first
+     * Only buckets that got messages after that time are read, so a client catching up after a reconnect gets just the new messages
+     *
+     * @param username is a username of one user
+     * @param partner  is a username of another user
+     * @param since    is a time (epoch ms), messages sent after it are returned
+     * @param limit    is a maximum number of messages returned
+     * @return list of messages
+     */
+    @Override
+    public List<Message> getMessagesSince(String username, String partner, long since, int limit) {
+        Query query = new Query(Criteria
+                .where("conversationId").is(conversationId(username, partner))
+                .and("lastMessageAt").gt(new Date(since)))
+                .with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("_id")));
+
+        List<Message> messages = new ArrayList<>();
+
+        for (MessageBucket bucket : mongoTemplate.find(query, MessageBucket.class)) {
+            for (Message message : bucket.getMessages()) {
+                if (message.getTimeStamp() > since && messages.size() < limit) {
+                    messages.add(message);
+                }
+            }
+        }
+
+        return messages;
+    }
+
+    /**
+     * This function finds a bucket that goes right before the given one
+     *
+     * @param conversationId is a conversation id
+     * @param bucket         is a bucket object, if it's null, the newest bucket is returned
+     * @return previous bucket or null if there is none
+     */
+    private MessageBucket findOlderBucket(String conversationId, MessageBucket bucket) {
+        Criteria criteria = Criteria.where("conversationId").is(conversationId);
+
+        if (bucket != null) {
+            Object id = ObjectId.isValid(bucket.getId()) ? new ObjectId(bucket.getId()) : bucket.getId();
+
+            criteria.orOperator(
+                    Criteria.where("createdAt").lt(bucket.getCreatedAt()),
+                    Criteria.where("createdAt").is(bucket.getCreatedAt()).and("_id").lt(id)
+            );
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")))
+                .limit(1);
+
+        return mongoTemplate.findOne(query, MessageBucket.class);
+    }
+
+    /**
+     * This function counts messages in user's dialogs, only bucket counters are fetched
+     *
+     * @param username is a user's username
+     * @param partners are usernames of people the user talks to
+     * @return map, where key is a partner's username and value is a number of messages in the dialog with them
+     */
+    @Override
+    public Map<String, Long> countMessages(String username, Collection<String> partners) {
+        Map<String, String> partnerByConversation = new HashMap<>();
+        Map<String, Long> counts = new HashMap<>();
+
+        for (String partner : partners) {
+            partnerByConversation.put(conversationId(username, partner), partner);
+            counts.put(partner, 0L);
+        }
+
+        Query query = new Query(Criteria.where("conversationId").in(partnerByConversation.keySet()));
+        query.fields()
+                .include("conversationId")
+                .include("count");
+
+        mongoTemplate.find(query, MessageBucket.class)
+                .forEach(bucket -> counts.merge(partnerByConversation.get(bucket.getConversationId()), (long) bucket.getCount(), Long::sum));
+
+        return counts;
+    }
+
+    /**
+     * This function moves messages stored inside the user document (User.dialogs) to message buckets
+     * Both users of a dialog have a copy of the same messages, so they are imported only once
+     * Imported buckets have fixed ids, so importing the same dialog twice doesn't duplicate messages
+     * Only message lists are cleared, dialog entries stay in the user document
+     *
+     * @param user is a user object, its dialogs are cleared as well
+     */
+    @Override
+    public void migrate(User user) {
+        if (user.getDialogs() == null) {
+            return;
+        }
+
+        for (Map.Entry<String, Pair<Integer, List<Message>>> dialog : user.getDialogs().entrySet()) {
+            List<Message> messages = dialog.getValue().getValue();
+
+            if (messages == null || messages.isEmpty()) {
+                continue;
+            }
+
+            String conversationId = conversationId(user.getUsername(), dialog.getKey());
+
+            boolean isImported = mongoTemplate.exists(
+                    new Query(Criteria.where("conversationId").is(conversationId).and("imported").is(true)),
+                    MessageBucket.class
+            );
+
+            if (!isImported) {
+                for (int i = 0; i * IMPORT_BUCKET_SIZE < messages.size(); i++) {
+                    List<Message> chunk = messages.subList(i * IMPORT_BUCKET_SIZE, Math.min((i + 1) * IMPORT_BUCKET_SIZE, messages.size()));
+
+                    MessageBucket bucket = new MessageBucket();
+                    bucket.setId(conversationId + ":imported:" + i);
+                    bucket.setConversationId(conversationId);
+                    bucket.setMessages(new ArrayList<>(chunk));
+                    bucket.setCount(chunk.size());
+                    bucket.setImported(true);
+
+                    // Imported history goes before everything sent after the migration, chunks keep their order
+                    bucket.setCreatedAt(new Date(i));
+                    bucket.setLastMessageAt(new Date(i));
+
+                    mongoTemplate.save(bucket);
+                }
+            }
+
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("username").is(user.getUsername())),
+                    new Update().set("dialogs." + dialog.getKey() + ".value", new ArrayList<Message>()),
+                    User.class
+            );
+
+            dialog.getValue().setValue(new ArrayList<>());
+        }
+    }
+
+    /**
+     * This function moves messages of all users to message buckets
+     *
+     * @return number of users processed
+     */
+    @Override
+    public int migrateAll() {
+        Query query = new Query();
+        query.fields()
+                .include("username")
+                .include("dialogs");
+
+        int processed = 0;
+
+        try (CloseableIterator<User> users = mongoTemplate.stream(query, User.class)) {
+            while (users.hasNext()) {
+                migrate(users.next());
+                processed++;
+            }
+        }
+
+        return processed;
+    }
+}
@@ -0,0 +1,224 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.Message;
+import com.moople.gitpals.MainApplication.model.Pair;
+import com.moople.gitpals.MainApplication.model.PendingMessage;
+import com.moople.gitpals.MainApplication.model.UnreadCounter;
+import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.service.interfaces.CounterInterface;
+import com.mongodb.client.result.UpdateResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class CounterService implements CounterInterface {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DialogSummaryService dialogSummaryService;
+
+    /**
+     * This function returns unread counters of a user
+     * Users who haven't had counters yet get them created from the numbers stored in their user document
+     *
+     * @param username is a user's username
+     * @return counters object
+     */
+    @Override
+    public UnreadCounter get(String username) {
+        UnreadCounter counter = mongoTemplate.findById(username, UnreadCounter.class);
+
+        return counter != null ? counter : seed(username);
+    }
+
+    /**
+     * This function adds an unread message to a dialog
+     *
+     * @param owner   is a username of a user who received a message
+     * @param partner is a username of a user who sent it
+     */
+    @Override
+    public void incrementDialog(String owner, String partner) {
+        incrementDialog(owner, partner, 1);
+    }
+
+    /**
+     * This function adds unread messages to a dialog
+     *
+     * @param owner   is a username of a user who received messages
+     * @param partner is a username of a user who sent them
+     * @param delta   is a number of new messages
+     */
+    @Override
+    public void incrementDialog(String owner, String partner, long delta) {
+        Update update = new Update()
+                .inc("dialogs." + partner, delta)
+                .inc("messages", delta);
+
+        update(owner, update);
+    }
+
+    /**
+     * This function adds unread messages to a dialog, unless they have been added already
+     * Counters remember ids of the latest messages added to them, so messages written again after a crash are not counted twice
+     *
+     * @param owner      is a username of a user who received messages
+     * @param partner    is a username of a user who sent them
+     * @param messageIds are ids of the new messages
+     */
+    @Override
+    public void incrementDialog(String owner, String partner, Collection<String> messageIds) {
+        Query query = new Query(Criteria.where("_id").is(owner).and("appliedMessages").nin(messageIds));
+        Update update = new Update()
+                .inc("dialogs." + partner, messageIds.size())
+                .inc("messages", messageIds.size());
+
+        update.push("appliedMessages").slice(-PendingMessage.REMEMBERED_IDS).each(messageIds.toArray());
+
+        UpdateResult result = mongoTemplate.updateFirst(query, update, UnreadCounter.class);
+
+        // Nothing matched either because the messages are counted already or because there are no counters yet
+        if (result.getMatchedCount() == 0 && !mongoTemplate.exists(new Query(Criteria.where("_id").is(owner)), UnreadCounter.class)) {
+            seed(owner);
+            mongoTemplate.updateFirst(query, update, UnreadCounter.class);
+        }
+    }
+
+    /**
+     * This function marks all messages of a dialog as read
+     * The dialog counter is reset first, then the total goes down by the number it had
+     * The dialog is marked as read in the user's dialog list too
+     *
+     * @param owner   is a username of a user who read the dialog
+     * @param partner is a username of a person the user talks to
+     */
+    @Override
+    public void resetDialog(String owner, String partner) {
+        Query query = new Query(Criteria.where("_id").is(owner));
+        Update update = new Update().set("dialogs." + partner, 0L);
+
+        UnreadCounter previous = mongoTemplate.findAndModify(query, update, UnreadCounter.class);
+
+        // Counters are created first, otherwise they would be created later with the stale number from the user document
+        if (previous == null) {
+            seed(owner);
+            previous = mongoTemplate.findAndModify(query, update, UnreadCounter.class);
+        }
+
+        long unread = previous == null ? 0 : previous.getUnreadMessages(partner);
+
+        if (unread > 0) {
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(owner)),
+                    new Update().inc("messages", -unread),
+                    UnreadCounter.class
+            );
+        }
+
+        dialogSummaryService.markAsRead(owner, partner);
+    }
+
+    /**
+     * This function changes a number of user's unread notifications
+     *
+     * @param username is a user's username
+     * @param delta    is a number of new notifications
+     * @return number of unread notifications after the change
+     */
+    @Override
+    public long incrementNotifications(String username, long delta) {
+        Query query = new Query(Criteria.where("_id").is(username));
+        Update update = new Update().inc("notifications", delta);
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+
+        UnreadCounter counter = mongoTemplate.findAndModify(query, update, options, UnreadCounter.class);
+
+        // Counters are created on first use, so numbers from the user document are not lost
+        if (counter == null) {
+            seed(username);
+            counter = mongoTemplate.findAndModify(query, update, options, UnreadCounter.class);
+        }
+
+        return counter == null ? 0 : counter.getNotifications();
+    }
+
+    /**
+     * This function marks all user's notifications as read
+     *
+     * @param username is a user's username
+     */
+    @Override
+    public void resetNotifications(String username) {
+        Update update = new Update()
+                .set("notifications", 0L)
+                .set("notificationsReadAt", new Date());
+
+        update(username, update);
+    }
+
+    /**
+     * This function applies an update to user's counters
+     * Counters are created first if the user doesn't have them yet, so a later seed can't bring back old numbers
+     */
+    private void update(String username, Update update) {
+        Query query = new Query(Criteria.where("_id").is(username));
+        UpdateResult result = mongoTemplate.updateFirst(query, update, UnreadCounter.class);
+
+        // Counters are created on first use, so numbers from the user document are not lost
+        if (result.getMatchedCount() == 0) {
+            seed(username);
+            mongoTemplate.updateFirst(query, update, UnreadCounter.class);
+        }
+    }
+
+    /**
+     * This function creates counters from unread numbers stored in the user document (User.dialogs & User.notifications)
+     *
+     * @param username is a user's username
+     * @return counters object
+     */
+    private UnreadCounter seed(String username) {
+        Query query = new Query(Criteria.where("username").is(username));
+        query.fields()
+                .include("dialogs")
+                .include("notifications.key");
+
+        User user = mongoTemplate.findOne(query, User.class);
+        UnreadCounter counter = new UnreadCounter(username);
+
+        if (user != null && user.getDialogs() != null) {
+            for (Map.Entry<String, Pair<Integer, List<Message>>> dialog : user.getDialogs().entrySet()) {
+                long unread = dialog.getValue().getKey() == null ? 0 : dialog.getValue().getKey();
+
+                counter.getDialogs().put(dialog.getKey(), unread);
+                counter.setMessages(counter.getMessages() + unread);
+            }
+        }
+
+        if (user != null && user.getNotifications() != null && user.getNotifications().getKey() != null) {
+            counter.setNotifications(user.getNotifications().getKey());
+        }
+
+        try {
+            mongoTemplate.insert(counter);
+        } catch (DuplicateKeyException e) {
+            // Someone else has created counters at the same time
+            return mongoTemplate.findById(username, UnreadCounter.class);
+        }
+
+        return counter;
+    }
+}
@@ -0,0 +1,217 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.*;
+import com.moople.gitpals.MainApplication.service.interfaces.DialogSummaryInterface;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class DialogSummaryService implements DialogSummaryInterface {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private CounterService counterService;
+
+    // Number of characters of the last message shown in the dialog list
+    private final int PREVIEW_LENGTH = 100;
+
+    /**
+     * This function returns user's dialogs, the most recent go first
+     * Dialogs that were started before summaries existed get their summaries built here
+     *
+     * @param user is a user object
+     * @return list of dialog summaries
+     */
+    @Override
+    public List<DialogSummary> getDialogs(User user) {
+        List<DialogSummary> dialogs = findByOwner(user.getUsername());
+
+        if (user.getDialogs() != null && dialogs.size() < user.getDialogs().size()) {
+            Set<String> summarized = dialogs.stream()
+                    .map(DialogSummary::getPartner)
+                    .collect(Collectors.toSet());
+
+            List<String> missing = user.getDialogs().keySet().stream()
+                    .filter(partner -> !summarized.contains(partner))
+                    .collect(Collectors.toList());
+
+            if (!missing.isEmpty()) {
+                build(user.getUsername(), missing);
+                dialogs = findByOwner(user.getUsername());
+            }
+        }
+
+        return dialogs;
+    }
+
+    /**
+     * This function updates dialog summaries of both users of each message
+     * All the updates are sent in one bulk request, a dialog is updated once no matter how many messages it got
+     * A summary remembers ids of the latest messages counted in it, so messages written again after a crash are not counted twice
+     *
+     * @param messages are stored messages, in the order they were sent
+     */
+    @Override
+    public void recordAll(List<PendingMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        // Key is (owner, partner), values are the last message and numbers of new total & unread messages
+        Map<Pair<String, String>, Message> lastMessages = new LinkedHashMap<>();
+        Map<Pair<String, String>, long[]> counts = new HashMap<>();
+        Map<Pair<String, String>, List<String>> ids = new HashMap<>();
+
+        for (PendingMessage pending : messages) {
+            Message message = pending.getMessage();
+
+            ids.computeIfAbsent(new Pair<>(message.getAuthor(), message.getRecipient()), k -> new ArrayList<>()).add(pending.getId());
+            ids.computeIfAbsent(new Pair<>(message.getRecipient(), message.getAuthor()), k -> new ArrayList<>()).add(pending.getId());
+
+            count(lastMessages, counts, new Pair<>(message.getAuthor(), message.getRecipient()), message, false);
+            count(lastMessages, counts, new Pair<>(message.getRecipient(), message.getAuthor()), message, pending.isUnread());
+        }
+
+        // Ordered, so a summary is created before it is updated
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, DialogSummary.class);
+
+        lastMessages.forEach((dialog, message) -> {
+            String id = DialogSummary.id(dialog.getKey(), dialog.getValue());
+            long[] dialogCounts = counts.get(dialog);
+            List<String> dialogIds = ids.get(dialog);
+
+            bulk.upsert(
+                    new Query(Criteria.where("_id").is(id)),
+                    new Update()
+                            .setOnInsert("owner", dialog.getKey())
+                            .setOnInsert("partner", dialog.getValue())
+            );
+
+            // Time the message was sent, not when it is stored: a write retried later mustn't move the dialog up the list
+            Update update = new Update()
+                    .set("lastMessage", preview(message.getContent()))
+                    .set("lastAuthor", message.getAuthor())
+                    .max("lastMessageAt", new Date(message.getTimeStamp()))
+                    .inc("totalMessages", dialogCounts[0])
+                    .inc("unreadMessages", dialogCounts[1]);
+
+            update.push("appliedMessages").slice(-PendingMessage.REMEMBERED_IDS).each(dialogIds.toArray());
+
+            bulk.updateOne(new Query(Criteria.where("_id").is(id).and("appliedMessages").nin(dialogIds)), update);
+        });
+
+        bulk.execute();
+    }
+
+    /**
+     * This function marks a dialog as read in the owner's dialog list
+     *
+     * @param owner   is a username of a user who read the dialog
+     * @param partner is a username of a person the user talks to
+     */
+    @Override
+    public void markAsRead(String owner, String partner) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(DialogSummary.id(owner, partner))),
+                new Update().set("unreadMessages", 0L),
+                DialogSummary.class
+        );
+    }
+
+    /**
+     * This function adds a message to the numbers of a dialog
+     * Messages come in the order they were sent, so the last one ends up as the preview
+     */
+    private void count(Map<Pair<String, String>, Message> lastMessages, Map<Pair<String, String>, long[]> counts,
+                       Pair<String, String> dialog, Message message, boolean unread) {
+        lastMessages.put(dialog, message);
+
+        long[] dialogCounts = counts.computeIfAbsent(dialog, k -> new long[2]);
+        dialogCounts[0]++;
+
+        if (unread) {
+            dialogCounts[1]++;
+        }
+    }
+
+    /**
+     * This function builds summaries of dialogs from the messages that are already stored
+     *
+     * @param owner    is a username of the dialogs' owner
+     * @param partners are usernames of people the owner talks to
+     */
+    private void build(String owner, List<String> partners) {
+        Map<String, Long> totals = conversationService.countMessages(owner, partners);
+        UnreadCounter counter = counterService.get(owner);
+
+        for (String partner : partners) {
+            DialogSummary summary = new DialogSummary(owner, partner);
+            summary.setTotalMessages(totals.getOrDefault(partner, 0L));
+            summary.setUnreadMessages(counter.getUnreadMessages(partner));
+
+            Query query = new Query(Criteria.where("conversationId").is(ConversationService.conversationId(owner, partner)))
+                    .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")))
+                    .limit(1);
+            query.fields()
+                    .include("lastMessageAt")
+                    .slice("messages", -1);
+
+            MessageBucket bucket = mongoTemplate.findOne(query, MessageBucket.class);
+
+            if (bucket != null && bucket.getMessages() != null && !bucket.getMessages().isEmpty()) {
+                Message last = bucket.getMessages().get(0);
+
+                summary.setLastMessage(preview(last.getContent()));
+                summary.setLastAuthor(last.getAuthor());
+                summary.setLastMessageAt(bucket.getLastMessageAt());
+            } else {
+                summary.setLastMessageAt(new Date(0));
+            }
+
+            // A message stored meanwhile has created the summary already, it is up to date
+            mongoTemplate.upsert(
+                    new Query(Criteria.where("_id").is(summary.getId())),
+                    new Update()
+                            .setOnInsert("owner", summary.getOwner())
+                            .setOnInsert("partner", summary.getPartner())
+                            .setOnInsert("lastMessage", summary.getLastMessage())
+                            .setOnInsert("lastAuthor", summary.getLastAuthor())
+                            .setOnInsert("lastMessageAt", summary.getLastMessageAt())
+                            .setOnInsert("totalMessages", summary.getTotalMessages())
+                            .setOnInsert("unreadMessages", summary.getUnreadMessages()),
+                    DialogSummary.class
+            );
+        }
+    }
+
+    private List<DialogSummary> findByOwner(String owner) {
+        Query query = new Query(Criteria.where("owner").is(owner))
+                .with(Sort.by(Sort.Order.desc("lastMessageAt")));
+
+        query.fields().exclude("appliedMessages");
+
+        return mongoTemplate.find(query, DialogSummary.class);
+    }
+
+    private String preview(String content) {
+        if (content == null) {
+            return "";
+        }
+
+        return content.length() > PREVIEW_LENGTH ? content.substring(0, PREVIEW_LENGTH) + "..." : content;
+    }
+}
@@ -1,15 +1,28 @@
 package com.moople.gitpals.MainApplication.service;
 
 import com.moople.gitpals.MainApplication.model.Comment;
+import com.moople.gitpals.MainApplication.model.CursorPage;
 import com.moople.gitpals.MainApplication.model.ForumPost;
-import com.moople.gitpals.MainApplication.model.Notification;
-import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.model.ForumPostSummary;
+import com.moople.gitpals.MainApplication.model.NotificationKind;
+import com.moople.gitpals.MainApplication.model.SearchResults;
 import com.moople.gitpals.MainApplication.repository.ForumRepository;
 import com.moople.gitpals.MainApplication.service.interfaces.ForumInterface;
+import com.moople.gitpals.MainApplication.tools.Cursor;
+import com.moople.gitpals.MainApplication.tools.Fetch;
+import com.moople.gitpals.MainApplication.tools.FullTextIndex;
+import com.moople.gitpals.MainApplication.tools.TrigramIndex;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,16 +32,173 @@ public class ForumService implements ForumInterface {
     private ForumRepository forumRepository;
 
     @Autowired
-    private UserService userService;
+    private NotificationService notificationService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private ForumViewService forumViewService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TimestampMigrationService timestampMigrationService;
+
+    private final TrigramIndex titleIndex = new TrigramIndex();
+    private final FullTextIndex textIndex = new FullTextIndex();
+
+    // Ids of the indexed posts, so a rebuild can find posts deleted on other nodes
+    private final Set<String> indexedIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * This function builds in-memory search indexes on startup
+     * Only fields the indexes need are fetched, later the indexes are updated on every save & delete
+     * In relay mode it is run again periodically (see SearchIndexRefreshService), documents removed meanwhile are dropped
+     */
+    @PostConstruct
+    public void buildSearchIndexes() {
+        Query query = new Query();
+        query.fields()
+                .include("title")
+                .include("content");
+
+        List<ForumPost> posts = mongoTemplate.find(query, ForumPost.class);
+        Set<String> stale = new HashSet<>(indexedIds);
+
+        posts.forEach(post -> {
+            index(post);
+            stale.remove(post.getId());
+        });
+        stale.forEach(this::unindex);
+    }
+
+    private void index(ForumPost post) {
+        indexedIds.add(post.getId());
+        titleIndex.put(post.getId(), post.getTitle());
+        textIndex.put(post.getId(), post.getTitle(), post.getContent());
+    }
+
+    private void unindex(String postId) {
+        titleIndex.remove(postId);
+        textIndex.remove(postId);
+        indexedIds.remove(postId);
+    }
 
     /**
      * This function returns all forum posts posted to forum
      *
-     * @return all forum posts
+     * @return all forum posts, the oldest go first
      */
     @Override
     public List<ForumPost> findAll() {
-        return forumRepository.findAll();
+        return forumRepository.findAll(Sort.by(Sort.Order.asc("timeStamp")));
+    }
+
+    /**
+     * This function returns posts published in a period of time, the newest go first
+     * Posts are found using the timestamp index, so paging goes back in time by passing the oldest timestamp of the previous page as 'before'
+     *
+     * @param since  is a time (epoch ms) after which posts were published, null if there is no lower limit
+     * @param before is a time (epoch ms) before which posts were published, null if there is no upper limit
+     * @param limit  is a maximum number of posts returned
+     * @return list of forum posts
+     */
+    @Override
+    public List<ForumPost> findPublishedBetween(Long since, Long before, int limit) {
+        Criteria criteria = Criteria.where("timeStamp");
+
+        if (since != null) {
+            criteria.gt(since);
+        }
+
+        if (before != null) {
+            criteria.lt(before);
+        }
+
+        Query query = new Query(since == null && before == null ? new Criteria() : criteria)
+                .with(Sort.by(Sort.Order.desc("timeStamp")))
+                .limit(limit);
+
+        return mongoTemplate.find(query, ForumPost.class);
+    }
+
+    /**
+     * This function returns the next portion of the forum list, the newest posts first
+     * Only the fields the list shows are fetched, content and comments stay in the database
+     * Until all timestamps are numbers, Mongo sorts string timestamps apart and skips them in range queries,
+     * so the list is sorted and paged in memory while the migration runs (see TimestampMigrationService)
+     *
+     * @param cursor is a token returned with the previous portion, null to start from the beginning
+     * @param limit  is a max number of posts returned
+     * @return post summaries along with the cursor for the next portion
+     */
+    @Override
+    public CursorPage<ForumPostSummary> getFeed(String cursor, int limit) {
+        Query query = new Query();
+
+        query.fields()
+                .include("key")
+                .include("title")
+                .include("author")
+                .include("timeStamp")
+                .include("commentCount");
+
+        Long lastTimeStamp = null;
+        ObjectId lastId = null;
+        String[] parts = Cursor.decode(cursor, 2);
+
+        if (parts != null && ObjectId.isValid(parts[1])) {
+            try {
+                lastTimeStamp = Long.parseLong(parts[0]);
+                lastId = new ObjectId(parts[1]);
+            } catch (NumberFormatException e) {
+                // Malformed cursor, start from the beginning
+            }
+        }
+
+        List<ForumPostSummary> posts;
+
+        if (timestampMigrationService.areForumPostsMigrated()) {
+            if (lastId != null) {
+                query.addCriteria(new Criteria().orOperator(
+                        Criteria.where("timeStamp").lt(lastTimeStamp),
+                        Criteria.where("timeStamp").is(lastTimeStamp).and("_id").lt(lastId)
+                ));
+            }
+
+            query.with(Sort.by(Sort.Direction.DESC, "timeStamp", "_id")).limit(limit + 1);
+            posts = mongoTemplate.find(query, ForumPostSummary.class, "forumPosts");
+        } else {
+            // Summaries are converted when they are loaded (see MongoConfiguration), so they can be compared here
+            long afterTimeStamp = lastId == null ? 0 : lastTimeStamp;
+            String afterId = lastId == null ? null : lastId.toHexString();
+
+            posts = mongoTemplate.find(query, ForumPostSummary.class, "forumPosts").stream()
+                    .filter(post -> afterId == null
+                            || post.getTimeStamp() < afterTimeStamp
+                            || post.getTimeStamp() == afterTimeStamp && post.getId().compareTo(afterId) < 0)
+                    .sorted(Comparator.comparingLong(ForumPostSummary::getTimeStamp)
+                            .thenComparing(ForumPostSummary::getId)
+                            .reversed())
+                    .limit(limit + 1)
+                    .collect(Collectors.toList());
+        }
+
+        String nextCursor = null;
+
+        // One extra post is always requested, so we know whether there is a next portion without counting
+        if (posts.size() > limit) {
+            posts = posts.subList(0, limit);
+            ForumPostSummary last = posts.get(limit - 1);
+            nextCursor = Cursor.encode(String.valueOf(last.getTimeStamp()), last.getId());
+        }
+
+        Map<String, Long> views = forumViewService.getViews(posts.stream().map(ForumPostSummary::getKey).collect(Collectors.toList()));
+        posts.forEach(post -> post.setViews(views.getOrDefault(post.getKey(), 0L)));
+
+        return new CursorPage<>(posts, nextCursor);
     }
 
     /**
@@ -48,9 +218,25 @@ public class ForumService implements ForumInterface {
      */
     @Override
     public List<ForumPost> matchForumPostsByTitle(String title) {
-        return forumRepository.findAll().stream()
-                .filter(post -> post.getTitle().toLowerCase().contains(title.toLowerCase()))
-                .collect(Collectors.toList());
+        return Fetch.inOrder(forumRepository, titleIndex.search(title), ForumPost::getId);
+    }
+
+    /**
+     * This function searches forum posts by words in their titles and content
+     *
+     * @param query    is a text user looks for
+     * @param page     is a page number, starting from 0
+     * @param pageSize is a number of posts on a page
+     * @return forum posts on the requested page, the most relevant go first
+     */
+    @Override
+    public SearchResults<ForumPost> searchForumPosts(String query, int page, int pageSize) {
+        List<String> ids = textIndex.search(query);
+
+        int from = (int) Math.min((long) page * pageSize, ids.size());
+        int to = Math.min(from + pageSize, ids.size());
+
+        return new SearchResults<>(Fetch.inOrder(forumRepository, ids.subList(from, to), ForumPost::getId), page, ids.size());
     }
 
     /**
@@ -74,17 +260,12 @@ public class ForumService implements ForumInterface {
      */
     @Override
     public void addComment(ForumPost post, String username, Comment comment) {
-        User postAuthor = userService.findByUsername(post.getAuthor());
-
         post.getComments().put(comment.getKey(), comment);
+        post.setCommentCount(post.getComments().size());
         forumRepository.save(post);
 
-        if (!username.equals(postAuthor.getUsername())) {
-            Notification notification = new Notification(username + " has left a comment on your forum post (" + post.getTitle() + ") -- " + comment.getText());
-            postAuthor.getNotifications().setKey(postAuthor.getNotifications().getKey() + 1);
-            postAuthor.getNotifications().getValue().put(notification.getKey(), notification);
-
-            userService.save(postAuthor);
+        if (!username.equals(post.getAuthor())) {
+            notificationService.add(post.getAuthor(), NotificationKind.FORUM_COMMENT, post.getKey(), post.getTitle(), username, comment.getText());
         }
     }
 
@@ -136,7 +317,15 @@ public class ForumService implements ForumInterface {
      */
     @Override
     public void save(ForumPost forumPost) {
+        boolean isNewPost = forumPost.getId() == null;
+
+        forumPost.setCommentCount(forumPost.getComments() == null ? 0 : forumPost.getComments().size());
         forumRepository.save(forumPost);
+        index(forumPost);
+
+        if (isNewPost) {
+            statisticsService.addForumPosts(1);
+        }
     }
 
     /**
@@ -147,5 +336,8 @@ public class ForumService implements ForumInterface {
     @Override
     public void delete(ForumPost forumPost) {
         forumRepository.delete(forumPost);
+        forumViewService.remove(forumPost.getKey());
+        unindex(forumPost.getId());
+        statisticsService.addForumPosts(-1);
     }
 }
\ No newline at end of file
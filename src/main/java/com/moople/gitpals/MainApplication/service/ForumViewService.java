@@ -0,0 +1,316 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.ForumPost;
+import com.moople.gitpals.MainApplication.model.Pair;
+import com.moople.gitpals.MainApplication.model.PostViews;
+import com.moople.gitpals.MainApplication.service.interfaces.ForumViewInterface;
+import com.moople.gitpals.MainApplication.tools.HyperLogLog;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts distinct users who have viewed forum posts
+ * Views are put into an in-memory queue and written in the background, all views of an interval go in one bulk request,
+ * so opening a post never writes to the database on the request thread
+ * Views that are still in the queue are lost if the application stops abruptly, which is at most flush-interval ms of views
+ */
+@Service
+public class ForumViewService implements ForumViewInterface {
+
+    private static final Logger log = LoggerFactory.getLogger(ForumViewService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    @Qualifier("migrationExecutor")
+    private TaskExecutor migrationExecutor;
+
+    // Number of documents rewritten by one bulk request
+    @Value("${gitpals.migration.batch-size:500}")
+    private int batchSize;
+
+    // Maximum number of views waiting to be written, views over it are dropped until the next flush
+    @Value("${gitpals.forum.views.max-pending:100000}")
+    private int maxPending;
+
+    // Views are counted exactly until a post has this many viewers, then the sketch is used
+    private final int MAX_EXACT_VIEWERS = 64;
+
+    // Views waiting to be written (post key -> username), the queue is lock-free so request threads never wait for each other
+    private final Queue<Pair<String, String>> pendingViews = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong droppedViews = new AtomicLong();
+
+    /**
+     * View sets that are still stored in forum posts are moved in the background once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInBackground() {
+        migrationExecutor.execute(() -> {
+            try {
+                int migrated = migrate();
+
+                if (migrated > 0) {
+                    log.info("Moved views of {} forum posts", migrated);
+                }
+            } catch (RuntimeException e) {
+                log.error("Forum views migration has failed, it will be retried on the next start", e);
+            }
+        });
+    }
+
+    /**
+     * This function counts a view of a forum post by a user
+     * The view is only queued, it is written by the next flush, so it is not returned by getViews until then
+     *
+     * @param postKey  is a forum post key
+     * @param username is a username of a user who has opened the post
+     */
+    @Override
+    public void addView(String postKey, String username) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            droppedViews.incrementAndGet();
+            return;
+        }
+
+        pendingViews.offer(new Pair<>(postKey, username));
+    }
+
+    /**
+     * This function puts views that could not be written back to the queue, so the next flush writes them
+     * Writing the same views twice is harmless, sketches are merged with $max and viewers with $addToSet
+     *
+     * @param viewers is a map of post key -> usernames of its viewers
+     */
+    private void requeue(Map<String, Set<String>> viewers) {
+        viewers.forEach((postKey, usernames) -> usernames.forEach(username -> addView(postKey, username)));
+    }
+
+    /**
+     * This function writes queued views, every post gets one update of its sketch and one of its exact viewers, all in one bulk request
+     * Repeated views of the same user are merged before writing
+     * Only views queued before the flush has started are written, so a flush never runs forever under load
+     * If the bulk request fails, the views are queued again (up to max-pending) and written by the next flush
+     */
+    @Override
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${gitpals.forum.views.flush-interval:5000}")
+    public void flush() {
+        long dropped = droppedViews.getAndSet(0);
+
+        if (dropped > 0) {
+            log.warn("{} forum post views have been dropped, the queue was full", dropped);
+        }
+
+        Map<String, Set<String>> viewers = new HashMap<>();
+        int count = pendingCount.get();
+
+        for (int i = 0; i < count; i++) {
+            Pair<String, String> view = pendingViews.poll();
+
+            if (view == null) {
+                break;
+            }
+
+            pendingCount.decrementAndGet();
+            viewers.computeIfAbsent(view.getKey(), key -> new HashSet<>()).add(view.getValue());
+        }
+
+        if (viewers.isEmpty()) {
+            return;
+        }
+
+        // Ordered, so a views document is created before its viewers are added
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, PostViews.class);
+
+        viewers.forEach((postKey, usernames) -> {
+            HyperLogLog sketch = new HyperLogLog();
+            usernames.forEach(sketch::offer);
+
+            bulk.upsert(new Query(Criteria.where("_id").is(postKey)), registers(sketch));
+            bulk.updateOne(
+                    new Query(Criteria.where("_id").is(postKey).and("viewers." + (MAX_EXACT_VIEWERS - 1)).exists(false)),
+                    new Update().addToSet("viewers").each(usernames.stream().limit(MAX_EXACT_VIEWERS).toArray())
+            );
+        });
+
+        try {
+            bulk.execute();
+        } catch (RuntimeException e) {
+            log.error("Views of {} forum posts could not be written, they will be retried", viewers.size(), e);
+            requeue(viewers);
+        }
+    }
+
+    private Update registers(HyperLogLog sketch) {
+        Update update = new Update();
+
+        for (int i = 0; i < HyperLogLog.REGISTERS; i++) {
+            if (sketch.get(i) > 0) {
+                update.max("registers." + i, sketch.get(i));
+            }
+        }
+
+        return update;
+    }
+
+    /**
+     * This function returns a number of distinct users who have viewed a forum post
+     *
+     * @param postKey is a forum post key
+     * @return number of views, exact if there are few of them, estimated otherwise
+     */
+    @Override
+    public long getViews(String postKey) {
+        return count(mongoTemplate.findById(postKey, PostViews.class));
+    }
+
+    /**
+     * This function returns numbers of views of several forum posts with one query
+     *
+     * @param postKeys are forum post keys
+     * @return map of post key -> number of views, posts nobody has viewed are not present
+     */
+    @Override
+    public Map<String, Long> getViews(Collection<String> postKeys) {
+        Map<String, Long> views = new HashMap<>();
+
+        mongoTemplate.find(new Query(Criteria.where("_id").in(postKeys)), PostViews.class)
+                .forEach(postViews -> views.put(postViews.getId(), count(postViews)));
+
+        return views;
+    }
+
+    /**
+     * This function sets numbers of views to forum posts, so they can be shown in a list
+     *
+     * @param posts are forum posts
+     */
+    @Override
+    public void fillViews(List<ForumPost> posts) {
+        List<String> keys = new ArrayList<>();
+        posts.forEach(post -> keys.add(post.getKey()));
+
+        Map<String, Long> views = getViews(keys);
+        posts.forEach(post -> post.setViews(views.getOrDefault(post.getKey(), 0L)));
+    }
+
+    /**
+     * This function removes views of a deleted forum post
+     *
+     * @param postKey is a forum post key
+     */
+    @Override
+    public void remove(String postKey) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(postKey)), PostViews.class);
+    }
+
+    private long count(PostViews postViews) {
+        if (postViews == null) {
+            return 0;
+        }
+
+        if (postViews.getViewers() != null && postViews.getViewers().size() < MAX_EXACT_VIEWERS) {
+            return postViews.getViewers().size();
+        }
+
+        HyperLogLog sketch = new HyperLogLog();
+
+        if (postViews.getRegisters() != null) {
+            postViews.getRegisters().forEach((index, rank) -> sketch.set(Integer.parseInt(index), rank));
+        }
+
+        return Math.max(sketch.estimate(), MAX_EXACT_VIEWERS);
+    }
+
+    /**
+     * This function moves view sets stored in forum posts to the views collection and removes them from the posts
+     * Views are merged with $max and $addToSet, so running it again or together with new views doesn't count anyone twice
+     *
+     * @return number of forum posts processed
+     */
+    @Override
+    public int migrate() {
+        Query query = new Query(Criteria.where("viewSet").exists(true));
+        query.fields()
+                .include("key")
+                .include("viewSet");
+
+        int migrated = 0;
+        BulkOperations views = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PostViews.class);
+        BulkOperations posts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ForumPost.class);
+        int pending = 0;
+        int pendingViews = 0;
+
+        try (CloseableIterator<Document> documents = mongoTemplate.stream(query, Document.class, "forumPosts")) {
+            while (documents.hasNext()) {
+                Document document = documents.next();
+                List<?> viewSet = document.get("viewSet", List.class);
+
+                if (viewSet != null && !viewSet.isEmpty() && document.getString("key") != null) {
+                    HyperLogLog sketch = new HyperLogLog();
+                    viewSet.forEach(username -> sketch.offer(String.valueOf(username)));
+
+                    Update update = registers(sketch).addToSet("viewers")
+                            .each(viewSet.subList(0, Math.min(viewSet.size(), MAX_EXACT_VIEWERS)).toArray());
+
+                    views.upsert(new Query(Criteria.where("_id").is(document.getString("key"))), update);
+                    pendingViews++;
+                }
+
+                posts.updateOne(
+                        new Query(Criteria.where("_id").is(document.get("_id"))),
+                        new Update().unset("viewSet")
+                );
+
+                if (++pending == batchSize) {
+                    if (pendingViews > 0) {
+                        views.execute();
+                    }
+
+                    posts.execute();
+                    migrated += pending;
+
+                    views = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PostViews.class);
+                    posts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ForumPost.class);
+                    pending = 0;
+                    pendingViews = 0;
+                }
+            }
+        }
+
+        if (pendingViews > 0) {
+            views.execute();
+        }
+
+        if (pending > 0) {
+            posts.execute();
+            migrated += pending;
+        }
+
+        return migrated;
+    }
+}
@@ -1,9 +1,6 @@
 package com.moople.gitpals.MainApplication.service;
 
-import com.moople.gitpals.MainApplication.model.Message;
-import com.moople.gitpals.MainApplication.model.Pair;
-import com.moople.gitpals.MainApplication.model.Project;
-import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.model.*;
 import com.moople.gitpals.MainApplication.service.interfaces.IndexInterface;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -28,6 +25,9 @@ public class IndexService implements IndexInterface {
     @Autowired
     private GlobalMessageService globalMessageService;
 
+    @Autowired
+    private StatisticsService statisticsService;
+
     private final long ONE_DAY = 1000 * 86400;
     private final int PROJECTS_PER_PAGE = 20;
 
@@ -39,63 +39,34 @@ public class IndexService implements IndexInterface {
     @Override
     public int getNumberOfPages() {
 
-        int numberOfPages = projectService.findAll().size() / PROJECTS_PER_PAGE;
+        long numberOfProjects = statisticsService.getNumberOfProjects();
+
+        int numberOfPages = (int) (numberOfProjects / PROJECTS_PER_PAGE);
         numberOfPages = numberOfPages == 0 ? 1 : numberOfPages;
 
-        if (projectService.findAll().size() - numberOfPages * PROJECTS_PER_PAGE > 0) {
+        if (numberOfProjects - (long) numberOfPages * PROJECTS_PER_PAGE > 0) {
             numberOfPages += 1;
         }
 
         return numberOfPages;
     }
 
-    /**
-     * This function counts a number of new unread messages received by another users
-     *
-     * @param user is a user object in the database
-     * @return number of messages that are unread
-     */
-    @Override
-    public int countUnreadMessages(User user) {
-        int unreadMessages = 0;
-
-        for (Map.Entry<String, Pair<Integer, List<Message>>> entry : user.getDialogs().entrySet()) {
-            unreadMessages += entry.getValue().getKey();
-        }
-
-        return unreadMessages;
-    }
-
     /**
      * This function return a list of projects displayed on specific page
-     * Each page has different projects
+     * Each page has different projects, the newest ones go first
+     * If the previous page gave us a cursor, the page continues right after it, otherwise it's found by its number
      *
-     * @param page is a page number specified by a user
-     * @return list of projects displayed on page specified by a user
+     * @param page   is a page number specified by a user
+     * @param cursor is a token of the previous page, can be null
+     * @return list of projects displayed on page specified by a user along with the cursor for the next page
      */
     @Override
-    public List<Project> getProjectsOnPage(int page) {
-        List<Project> allProjects = projectService.findAll();
-        int projectsAmount = allProjects.size();
-
-        List<Project> projects;
-
-        if (projectsAmount <= PROJECTS_PER_PAGE) {
-            projects = allProjects;
-            Collections.reverse(projects);
-        } else {
-            projects = new ArrayList<>();
-
-            int start = projectsAmount - 1 - (PROJECTS_PER_PAGE * (page - 1));
-            int end = projectsAmount - (PROJECTS_PER_PAGE * page);
-            end = Math.max(end, 0);
-
-            for (int i = start; i >= end; i--) {
-                projects.add(allProjects.get(i));
-            }
+    public CursorPage<Project> getProjectsOnPage(int page, String cursor) {
+        if (cursor != null) {
+            return projectService.getFeed(FeedOrder.NEWEST, cursor, PROJECTS_PER_PAGE);
         }
 
-        return projects;
+        return projectService.getFeedPage(FeedOrder.NEWEST, page, PROJECTS_PER_PAGE);
     }
 
     /**
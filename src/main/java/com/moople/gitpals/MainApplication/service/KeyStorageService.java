@@ -3,9 +3,12 @@ package com.moople.gitpals.MainApplication.service;
 import com.moople.gitpals.MainApplication.model.KeyStorage;
 import com.moople.gitpals.MainApplication.repository.KeyStorageRepository;
 import com.moople.gitpals.MainApplication.service.interfaces.KeyStorageInterface;
+import com.moople.gitpals.MainApplication.tools.LruCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.util.List;
 
 @Service
@@ -14,6 +17,17 @@ public class KeyStorageService implements KeyStorageInterface {
     @Autowired
     private KeyStorageRepository keyStorageRepository;
 
+    @Value("${gitpals.messages.key-cache-size:10000}")
+    private int keyCacheSize;
+
+    // Keys never change once created, so cached keys are always up to date
+    private LruCache<String, String> keyCache;
+
+    @PostConstruct
+    public void createCache() {
+        keyCache = new LruCache<>(keyCacheSize);
+    }
+
     @Override
     public KeyStorage findByUsername(String username) {
         return keyStorageRepository.findByUsername(username);
@@ -24,8 +38,23 @@ public class KeyStorageService implements KeyStorageInterface {
         return keyStorageRepository.findAll();
     }
 
+    /**
+     * This function returns a user's message key, keys are cached, so usually the database is not queried
+     *
+     * @param username is a user's username
+     * @return user's message key or null if the user has no key
+     */
+    @Override
+    public String findKey(String username) {
+        return keyCache.get(username, name -> {
+            KeyStorage keyStorage = keyStorageRepository.findByUsername(name);
+            return keyStorage == null ? null : keyStorage.getKey();
+        });
+    }
+
     @Override
     public void save(KeyStorage keyStorage) {
         keyStorageRepository.save(keyStorage);
+        keyCache.put(keyStorage.getUsername(), keyStorage.getKey());
     }
 }
\ No newline at end of file
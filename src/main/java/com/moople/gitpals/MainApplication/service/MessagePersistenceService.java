@@ -0,0 +1,277 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moople.gitpals.MainApplication.model.Message;
+import com.moople.gitpals.MainApplication.model.Pair;
+import com.moople.gitpals.MainApplication.model.PendingMessage;
+import com.moople.gitpals.MainApplication.service.interfaces.MessagePersistenceInterface;
+import com.moople.gitpals.MainApplication.tools.WriteAheadLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Chat messages are delivered to users first and stored in the database afterwards (write-behind)
+ * A message is appended to a local write-ahead log, put into a queue and returned to the sender right away
+ * A background flusher takes messages from the queue in batches and stores each batch with a few bulk writes
+ * If the application crashes, messages that are in the log but not in the database are handed to the flusher on the next start
+ * Every message has an id, documents remember ids of messages applied to them, so a message stored again after a crash changes nothing twice
+ * If the log can't be opened (e.g. the file system is read-only), messages are stored by the sender's thread right away
+ */
+@Service
+public class MessagePersistenceService implements MessagePersistenceInterface {
+
+    private static final Logger log = LoggerFactory.getLogger(MessagePersistenceService.class);
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private DialogSummaryService dialogSummaryService;
+
+    @Autowired
+    @Qualifier("messageFlushExecutor")
+    private ThreadPoolTaskExecutor messageFlushExecutor;
+
+    // Directory of the write-ahead log, it must be writable and survive restarts for crash recovery to work
+    @Value("${gitpals.messages.wal-dir:data}")
+    private String walDir;
+
+    @Value("${gitpals.messages.wal-sync:false}")
+    private boolean walSync;
+
+    @Value("${gitpals.messages.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${gitpals.messages.batch-size:500}")
+    private int batchSize;
+
+    // How long (ms) a message can wait in the queue when it is full, after that it is stored by the sender's thread
+    @Value("${gitpals.messages.offer-timeout:50}")
+    private long offerTimeout;
+
+    // Not the application's mapper: log records must be written on a single line
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // Null if the log could not be opened, then messages are stored directly
+    private WriteAheadLog<PendingMessage> wal;
+    private BlockingQueue<Pair<Long, PendingMessage>> queue;
+    private volatile boolean running;
+
+    // Messages the flusher stores one by one: those recovered from the log and those the sender's thread failed to store
+    private final Queue<Pair<Long, PendingMessage>> retries = new ConcurrentLinkedQueue<>();
+
+    /**
+     * This function opens the write-ahead log and starts the flusher, which stores messages left from the previous run first
+     * If the log can't be opened, the application still starts and messages are stored without it
+     * Nothing is written to the database here, so the application starts even if the database is unavailable
+     */
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        try {
+            wal = new WriteAheadLog<>(Paths.get(walDir, "messages.wal"), mapper, PendingMessage.class, walSync);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not open the write-ahead log in '{}', messages will be stored directly", walDir, e);
+            return;
+        }
+
+        Map<Long, PendingMessage> recovered;
+
+        try {
+            recovered = wal.readUncheckpointed();
+        } catch (IOException e) {
+            log.error("Could not read the write-ahead log, messages left from the previous run are not stored", e);
+            recovered = Collections.emptyMap();
+        }
+
+        if (!recovered.isEmpty()) {
+            log.info("{} messages recovered from the write-ahead log will be stored", recovered.size());
+
+            // One by one: messages of a batch may have been stored partly, and a document skips a whole update if it has any of its messages
+            recovered.forEach((sequence, pending) -> retries.add(new Pair<>(sequence,
+                    pending.getId() == null ? new PendingMessage(pending.getMessage(), pending.isUnread()) : pending)));
+        }
+
+        running = true;
+        messageFlushExecutor.execute(this::flushLoop);
+    }
+
+    /**
+     * This function stops the flusher and stores everything left in the queue
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        if (wal == null) {
+            return;
+        }
+
+        running = false;
+        // Interrupts the flusher and waits for it to finish the batch it is storing
+        messageFlushExecutor.shutdown();
+
+        List<Pair<Long, PendingMessage>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+
+        wal.close();
+    }
+
+    /**
+     * This function accepts a message for storing, it returns as soon as the message is in the write-ahead log
+     * If the queue is full, the message is stored right away, which slows the sender down (backpressure)
+     * If that fails, the message is already in the log, so it is left to the flusher to retry instead of failing the sender
+     *
+     * @param message is a message object
+     * @param unread  is true if the recipient hasn't seen the message yet
+     */
+    @Override
+    public void submit(Message message, boolean unread) {
+        PendingMessage pending = new PendingMessage(message, unread);
+
+        if (wal == null) {
+            write(Collections.singletonList(new Pair<>(null, pending)));
+            return;
+        }
+
+        long sequence;
+
+        try {
+            sequence = wal.append(pending);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Pair<Long, PendingMessage> entry = new Pair<>(sequence, pending);
+
+        try {
+            if (queue.offer(entry, offerTimeout, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            write(Collections.singletonList(entry));
+        } catch (RuntimeException e) {
+            log.warn("Could not store message {}, the flusher will retry it", pending.getId(), e);
+            retries.add(entry);
+        }
+    }
+
+    /**
+     * @return number of messages waiting to be stored
+     */
+    @Override
+    public int getQueueSize() {
+        return queue.size() + retries.size();
+    }
+
+    private void flushLoop() {
+        List<Pair<Long, PendingMessage>> batch = new ArrayList<>();
+        long backoff = 100;
+
+        while (running || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty() && !retries.isEmpty()) {
+                    batch.add(retries.poll());
+                }
+
+                if (batch.isEmpty()) {
+                    Pair<Long, PendingMessage> first = queue.poll(1, TimeUnit.SECONDS);
+
+                    if (first == null) {
+                        continue;
+                    }
+
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+
+                write(batch);
+                batch.clear();
+                backoff = 100;
+            } catch (InterruptedException e) {
+                if (!running) {
+                    // Messages of the failed batch are still in the log, they are stored on the next start
+                    break;
+                }
+            } catch (RuntimeException e) {
+                // The batch is kept and retried, messages are not checkpointed until they are stored
+                log.error("Could not store {} messages, retrying in {} ms", batch.size(), backoff, e);
+
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    if (!running) {
+                        break;
+                    }
+                }
+
+                backoff = Math.min(backoff * 2, 10_000);
+            }
+        }
+    }
+
+    /**
+     * This function stores a batch of messages and checkpoints the write-ahead log
+     * Messages go to conversation buckets, unread messages of each dialog are added to counters with one update
+     *
+     * @param batch is a list of sequence numbers & messages
+     */
+    private void write(List<Pair<Long, PendingMessage>> batch) {
+        conversationService.appendAll(batch.stream()
+                .map(entry -> entry.getValue().getMessage())
+                .collect(Collectors.toList()));
+
+        Map<Pair<String, String>, List<String>> unread = new LinkedHashMap<>();
+        for (Pair<Long, PendingMessage> entry : batch) {
+            Message message = entry.getValue().getMessage();
+
+            if (entry.getValue().isUnread()) {
+                unread.computeIfAbsent(new Pair<>(message.getRecipient(), message.getAuthor()), k -> new ArrayList<>())
+                        .add(entry.getValue().getId());
+            }
+        }
+
+        unread.forEach((dialog, ids) -> counterService.incrementDialog(dialog.getKey(), dialog.getValue(), ids));
+
+        dialogSummaryService.recordAll(batch.stream()
+                .map(Pair::getValue)
+                .collect(Collectors.toList()));
+
+        if (wal == null) {
+            return;
+        }
+
+        try {
+            wal.complete(batch.stream().map(Pair::getKey).filter(Objects::nonNull).collect(Collectors.toList()));
+        } catch (IOException e) {
+            log.error("Could not checkpoint the write-ahead log", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.OutboxEntry;
+import com.moople.gitpals.MainApplication.service.interfaces.NotificationOutboxInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Notifications for many users at once go through the outbox: the request only stores one entry with the list of recipients,
+ * the dispatcher delivers it in the background with bulk writes and retries it if delivery fails
+ * Entries are taken with findAndModify, so several application nodes never deliver the same entry at the same time
+ */
+@Service
+public class NotificationOutboxService implements NotificationOutboxInterface {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutboxService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    // Maximum number of entries delivered by one dispatcher run
+    @Value("${gitpals.notifications.outbox-batch-size:100}")
+    private int batchSize;
+
+    // How long (ms) an entry stays taken by a dispatcher, if the node dies meanwhile, the entry is delivered by someone else after that
+    private final long LEASE_TIME = 60000;
+
+    // Failed deliveries are retried after 5s, 10s, 20s... up to 10 minutes, an entry is dropped after MAX_ATTEMPTS
+    private final long RETRY_DELAY = 5000;
+    private final long MAX_RETRY_DELAY = 600000;
+    private final int MAX_ATTEMPTS = 10;
+
+    /**
+     * This function stores a notification for the given users, it is delivered in the background
+     *
+     * @param recipients are usernames of users who get the notification
+     * @param text       is a notification text
+     */
+    @Override
+    public void enqueue(Collection<String> recipients, String text) {
+        if (recipients.isEmpty()) {
+            return;
+        }
+
+        mongoTemplate.insert(new OutboxEntry(new ArrayList<>(recipients), text));
+    }
+
+    /**
+     * This function delivers entries whose time has come
+     * Delivery is idempotent (see NotificationService.deliver), so an entry delivered twice doesn't notify users twice
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${gitpals.notifications.outbox-interval:1000}")
+    public void dispatch() {
+        for (int i = 0; i < batchSize; i++) {
+            OutboxEntry entry = claim();
+
+            if (entry == null) {
+                return;
+            }
+
+            Query query = new Query(Criteria.where("_id").is(entry.getId()));
+
+            try {
+                notificationService.deliver(entry.getId(), entry.getRecipients(), entry.getText());
+                mongoTemplate.remove(query, OutboxEntry.class);
+            } catch (RuntimeException e) {
+                if (entry.getAttempts() >= MAX_ATTEMPTS) {
+                    log.error("Dropping notification '{}' for {} users after {} attempts", entry.getText(), entry.getRecipients().size(), entry.getAttempts(), e);
+                    mongoTemplate.remove(query, OutboxEntry.class);
+                } else {
+                    log.warn("Could not deliver notification '{}', it will be retried", entry.getText(), e);
+
+                    long delay = Math.min(RETRY_DELAY << Math.min(entry.getAttempts() - 1, 20), MAX_RETRY_DELAY);
+                    mongoTemplate.updateFirst(query, new Update().set("nextAttemptAt", new Date(System.currentTimeMillis() + delay)), OutboxEntry.class);
+                }
+            }
+        }
+    }
+
+    /**
+     * This function takes the oldest entry that is due, nobody else takes it until its lease is over
+     *
+     * @return outbox entry or null if there is nothing to deliver
+     */
+    private OutboxEntry claim() {
+        long now = System.currentTimeMillis();
+
+        return mongoTemplate.findAndModify(
+                new Query(Criteria.where("nextAttemptAt").lte(new Date(now))).with(Sort.by(Sort.Order.asc("nextAttemptAt"))),
+                new Update()
+                        .set("nextAttemptAt", new Date(now + LEASE_TIME))
+                        .inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                OutboxEntry.class
+        );
+    }
+}
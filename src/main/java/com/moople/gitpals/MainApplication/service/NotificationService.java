@@ -0,0 +1,411 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.CursorPage;
+import com.moople.gitpals.MainApplication.model.Notification;
+import com.moople.gitpals.MainApplication.model.NotificationEvent;
+import com.moople.gitpals.MainApplication.model.NotificationKind;
+import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.service.interfaces.NotificationInterface;
+import com.moople.gitpals.MainApplication.tools.Cursor;
+import com.moople.gitpals.MainApplication.tools.Encrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class NotificationService implements NotificationInterface {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    // Connected users get their new notifications at /user/queue/notifications
+    public static final String NOTIFICATIONS_QUEUE = "/queue/notifications";
+
+    // Notifications are removed by the database this many days after they were created
+    @Value("${gitpals.notifications.ttl-days:30}")
+    private long ttlDays;
+
+    // Only this many latest notifications of a user are kept
+    @Value("${gitpals.notifications.max-per-user:100}")
+    private int maxPerUser;
+
+    // A notification is merged into a similar one if that one has got an event during this time (ms)
+    @Value("${gitpals.notifications.coalesce-window:3600000}")
+    private long coalesceWindow;
+
+    /**
+     * This function creates the index that makes the database remove old notifications
+     */
+    @PostConstruct
+    public void createExpirationIndex() {
+        try {
+            mongoTemplate.indexOps(Notification.class)
+                    .ensureIndex(new Index().on("createdAt", Sort.Direction.ASC).expire(ttlDays, TimeUnit.DAYS));
+        } catch (RuntimeException e) {
+            // The index exists with another expiration time, it has to be dropped to be changed
+            log.warn("Could not create the notification expiration index", e);
+        }
+    }
+
+    /**
+     * This function sends a notification about an event, which can be merged with similar events
+     * If the user has an unseen notification of the same kind about the same target that got an event recently,
+     * that notification is updated (its counter goes up and it moves to the top), otherwise a new one is created
+     * Both happen in one upsert, a notification that has just been created is the one with a single event
+     * A merged notification is still one unread notification, so the unread counter doesn't change
+     *
+     * @param username is a username of a user who gets the notification
+     * @param kind     is a kind of the event
+     * @param target   is a unique key of a project or a post the event is about
+     * @param title    is a title of that project or post
+     * @param actor    is a username of a user who caused the event
+     * @param detail   is a detail shown if the notification is not merged (e.g. comment text)
+     * @return created or updated notification
+     */
+    @Override
+    public Notification add(String username, NotificationKind kind, String target, String title, String actor, String detail) {
+        String groupKey = kind + ":" + target;
+        Notification created = new Notification(kind.text(actor, title, 1, detail));
+
+        // username & groupKey are copied to a new notification from the query
+        Notification notification = mongoTemplate.findAndModify(
+                new Query(Criteria
+                        .where("username").is(username)
+                        .and("groupKey").is(groupKey)
+                        .and("createdAt").gt(new Date(created.getCreatedAt().getTime() - coalesceWindow))
+                        .and("seen").ne(true)),
+                new Update()
+                        .inc("count", 1)
+                        .set("lastActor", actor)
+                        .addToSet("actors", actor)
+                        .set("createdAt", created.getCreatedAt())
+                        .setOnInsert("_id", created.getId())
+                        .setOnInsert("key", created.getKey())
+                        .setOnInsert("text", created.getText()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Notification.class
+        );
+
+        if (notification.getCount() == 1) {
+            push(notification, counterService.incrementNotifications(username, 1));
+            trim(username);
+
+            return notification;
+        }
+
+        // If another event has been merged meanwhile, its text (with a bigger number) is kept
+        notification.setText(kind.text(actor, title, kind.count(notification), detail));
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(notification.getId()).and("count").is(notification.getCount())),
+                new Update().set("text", notification.getText()),
+                Notification.class
+        );
+
+        if (presenceService.isOnline(username)) {
+            push(notification, counterService.get(username).getNotifications());
+        }
+
+        return notification;
+    }
+
+    /**
+     * This function sends the same notification to several users with one bulk write
+     * Notification ids are made from the event id, so delivering the same event again doesn't duplicate notifications
+     * Every notification remembers whether it has been counted, so delivering the event again after a failure
+     * counts and pushes the notifications that were stored but not counted last time
+     *
+     * @param eventId   is an id of the event the notification is about (e.g. an outbox entry id)
+     * @param usernames are usernames of users who get the notification
+     * @param text      is a notification text
+     */
+    @Override
+    public void deliver(String eventId, Collection<String> usernames, String text) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+
+        List<Notification> notifications = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class);
+
+        for (String username : usernames) {
+            Notification notification = new Notification(text);
+            notification.setUsername(username);
+            notification.setKey(Encrypt.MD5(eventId + ":" + username));
+            notification.setId(notification.getKey());
+            notifications.add(notification);
+
+            bulk.upsert(
+                    new Query(Criteria.where("_id").is(notification.getId())),
+                    new Update()
+                            .setOnInsert("username", username)
+                            .setOnInsert("text", text)
+                            .setOnInsert("key", notification.getKey())
+                            .setOnInsert("createdAt", notification.getCreatedAt())
+                            .setOnInsert("counted", false)
+            );
+        }
+
+        bulk.execute();
+
+        Query uncounted = new Query(Criteria
+                .where("_id").in(notifications.stream().map(Notification::getId).toArray())
+                .and("counted").is(false));
+        uncounted.fields().include("_id");
+
+        Set<String> uncountedIds = new HashSet<>();
+        mongoTemplate.find(uncounted, Notification.class).forEach(notification -> uncountedIds.add(notification.getId()));
+
+        notifications.stream()
+                .filter(notification -> uncountedIds.contains(notification.getId()))
+                .forEach(this::count);
+    }
+
+    /**
+     * This function adds a delivered notification to the unread counter and pushes it to the user
+     * The notification is marked as counted first, so concurrent deliveries of the same event count it only once
+     * If the counter can't be updated, the mark is removed, so the next delivery counts the notification
+     *
+     * @param notification is a delivered notification
+     */
+    private void count(Notification notification) {
+        Query query = new Query(Criteria.where("_id").is(notification.getId()).and("counted").is(false));
+
+        if (mongoTemplate.updateFirst(query, new Update().set("counted", true), Notification.class).getModifiedCount() == 0) {
+            return;
+        }
+
+        long unread;
+
+        try {
+            unread = counterService.incrementNotifications(notification.getUsername(), 1);
+        } catch (RuntimeException e) {
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(notification.getId())),
+                    new Update().set("counted", false),
+                    Notification.class
+            );
+            throw e;
+        }
+
+        push(notification, unread);
+        trim(notification.getUsername());
+    }
+
+    /**
+     * This function returns user's notifications page by page, the newest go first
+     *
+     * @param username is a user's username
+     * @param cursor   is a token of the previous page, the newest notifications are returned if it's null
+     * @param limit    is a maximum number of notifications returned
+     * @return notifications and a cursor for older ones, which is null if there are none
+     */
+    @Override
+    public CursorPage<Notification> getPage(String username, String cursor, int limit) {
+        Criteria criteria = Criteria.where("username").is(username);
+        String[] position = Cursor.decode(cursor, 2);
+
+        if (position != null) {
+            try {
+                Date createdAt = new Date(Long.parseLong(position[0]));
+
+                criteria.orOperator(
+                        Criteria.where("createdAt").lt(createdAt),
+                        Criteria.where("createdAt").is(createdAt).and("_id").lt(position[1])
+                );
+            } catch (NumberFormatException e) {
+                return new CursorPage<>(new ArrayList<>(), null);
+            }
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")))
+                .limit(limit + 1);
+
+        List<Notification> notifications = mongoTemplate.find(query, Notification.class);
+        String nextCursor = null;
+
+        if (notifications.size() > limit) {
+            notifications = notifications.subList(0, limit);
+
+            Notification last = notifications.get(limit - 1);
+            nextCursor = Cursor.encode(String.valueOf(last.getCreatedAt().getTime()), last.getId());
+        }
+
+        return new CursorPage<>(new ArrayList<>(notifications), nextCursor);
+    }
+
+    /**
+     * This function removes a specific user's notification
+     *
+     * @param username is a user's username
+     * @param key      is a notification key
+     * @return true if the notification was found and removed
+     */
+    @Override
+    public boolean remove(String username, String key) {
+        return mongoTemplate.remove(
+                new Query(Criteria.where("_id").is(key).and("username").is(username)),
+                Notification.class
+        ).getDeletedCount() > 0;
+    }
+
+    /**
+     * This function removes all user's notifications with one request and resets the unread counter
+     *
+     * @param username is a user's username
+     */
+    @Override
+    public void removeAll(String username) {
+        mongoTemplate.remove(new Query(Criteria.where("username").is(username)), Notification.class);
+        counterService.resetNotifications(username);
+    }
+
+    /**
+     * This function marks all user's notifications as read, so new events don't get merged into ones the user has seen
+     *
+     * @param username is a user's username
+     */
+    @Override
+    public void markAllAsSeen(String username) {
+        counterService.resetNotifications(username);
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("username").is(username).and("groupKey").ne(null).and("seen").ne(true)),
+                new Update().set("seen", true),
+                Notification.class
+        );
+    }
+
+    /**
+     * This function sends a new notification to the user's chat sessions, nothing is sent if the user isn't connected
+     *
+     * @param notification is a notification object
+     * @param unread       is a number of user's unread notifications, including this one
+     */
+    private void push(Notification notification, long unread) {
+        if (presenceService.isOnline(notification.getUsername())) {
+            messagingTemplate.convertAndSendToUser(
+                    notification.getUsername(),
+                    NOTIFICATIONS_QUEUE,
+                    new NotificationEvent(notification, unread)
+            );
+        }
+    }
+
+    /**
+     * This function removes notifications that go after the newest 'maxPerUser' ones
+     * Notifications are ordered by (createdAt, _id) like on the notifications page, so ones created at the same time are not over-removed
+     *
+     * @param username is a user's username
+     */
+    private void trim(String username) {
+        Query query = new Query(Criteria.where("username").is(username))
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")))
+                .skip(maxPerUser)
+                .limit(1);
+        query.fields().include("createdAt");
+
+        Notification newestRemoved = mongoTemplate.findOne(query, Notification.class);
+
+        if (newestRemoved != null) {
+            mongoTemplate.remove(
+                    new Query(Criteria.where("username").is(username).orOperator(
+                            Criteria.where("createdAt").lt(newestRemoved.getCreatedAt()),
+                            Criteria.where("createdAt").is(newestRemoved.getCreatedAt()).and("_id").lte(newestRemoved.getId())
+                    )),
+                    Notification.class
+            );
+        }
+    }
+
+    /**
+     * This function moves notifications stored inside the user document (User.notifications) to the notifications collection
+     * Keys stay the same, so moving the same notifications twice doesn't duplicate them
+     *
+     * @param user is a user object, its notifications are cleared as well
+     */
+    @Override
+    public void migrate(User user) {
+        if (user.getNotifications() == null || user.getNotifications().getValue() == null
+                || user.getNotifications().getValue().isEmpty()) {
+            return;
+        }
+
+        Date now = new Date();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class);
+
+        user.getNotifications().getValue().forEach((key, notification) -> bulk.upsert(
+                new Query(Criteria.where("_id").is(key)),
+                new Update()
+                        .setOnInsert("username", user.getUsername())
+                        .setOnInsert("text", notification.getText())
+                        .setOnInsert("key", key)
+                        .setOnInsert("createdAt", notification.getCreatedAt() != null ? notification.getCreatedAt() : now)
+        ));
+
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // Notifications have just been moved by another request
+        }
+
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("username").is(user.getUsername())),
+                new Update().set("notifications.value", new HashMap<String, Notification>()),
+                User.class
+        );
+
+        user.getNotifications().setValue(new HashMap<>());
+    }
+
+    /**
+     * This function moves notifications of all users to the notifications collection
+     *
+     * @return number of users processed
+     */
+    @Override
+    public int migrateAll() {
+        Query query = new Query(Criteria.where("notifications.value").exists(true).ne(Collections.emptyMap()));
+        query.fields()
+                .include("username")
+                .include("notifications");
+
+        int processed = 0;
+
+        try (CloseableIterator<User> users = mongoTemplate.stream(query, User.class)) {
+            while (users.hasNext()) {
+                migrate(users.next());
+                processed++;
+            }
+        }
+
+        return processed;
+    }
+}
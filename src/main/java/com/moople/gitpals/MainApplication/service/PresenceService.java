@@ -0,0 +1,309 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.Pair;
+import com.moople.gitpals.MainApplication.model.PresenceEntry;
+import com.moople.gitpals.MainApplication.service.interfaces.PresenceInterface;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import javax.annotation.PreDestroy;
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of who is connected to the chat and which destinations they listen to
+ * It is updated by websocket session events, so questions like "is the recipient on the dialog page" are answered by a map lookup
+ * When several application nodes share a broker (relay mode), every node also mirrors its presence to the 'presence' collection,
+ * so users connected to other nodes are found with a single indexed query
+ */
+@Service
+public class PresenceService implements PresenceInterface {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${gitpals.broker.mode:simple}")
+    private String brokerMode;
+
+    // How long (ms) presence records of a node live if the node stops refreshing them
+    @Value("${gitpals.presence.ttl:90000}")
+    private long presenceTtl;
+
+    // How long (ms) an answer about users of other nodes is reused, so sending messages doesn't query the database every time
+    @Value("${gitpals.presence.remote-cache-ttl:2000}")
+    private long remoteCacheTtl;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // A dialog page sends this header when it subscribes to the messages queue, the value is a username of the other user
+    public static final String DIALOG_HEADER = "dialog";
+
+    // Key is a session id, value is a map of subscription id -> destination
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    // Key is a session id, value is a username of the session's owner
+    private final Map<String, String> sessionUsers = new ConcurrentHashMap<>();
+
+    // Key is a destination, value is a number of subscriptions to it
+    private final Map<String, Integer> destinations = new ConcurrentHashMap<>();
+
+    // Key is a username & a destination, value is a number of user's subscriptions to it
+    // User destinations (like /user/queue/messages) look the same for everyone, so they are counted per user
+    private final Map<String, Integer> userDestinations = new ConcurrentHashMap<>();
+
+    // Key is a username, value is a number of user's open sessions (tabs, devices)
+    private final Map<String, Integer> onlineUsers = new ConcurrentHashMap<>();
+
+    // Key is a username & a destination, value is whether the user is subscribed on another node & when that answer expires
+    private final Map<String, Pair<Boolean, Long>> remotePresence = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        Principal user = event.getUser();
+
+        if (sessionId != null && user != null && sessionUsers.putIfAbsent(sessionId, user.getName()) == null) {
+            increment(onlineUsers, user.getName(), user.getName(), "");
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+
+        if (accessor.getSessionId() == null || accessor.getSubscriptionId() == null || accessor.getDestination() == null) {
+            return;
+        }
+
+        String dialog = accessor.getFirstNativeHeader(DIALOG_HEADER);
+        String destination = dialog == null ? accessor.getDestination() : dialogDestination(accessor.getDestination(), dialog);
+
+        String previous = sessionSubscriptions
+                .computeIfAbsent(accessor.getSessionId(), k -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), destination);
+
+        if (previous != null) {
+            removeSubscription(accessor.getSessionId(), previous);
+        }
+
+        increment(destinations, destination, "", destination);
+
+        String username = sessionUsers.get(accessor.getSessionId());
+        if (username != null) {
+            increment(userDestinations, userDestination(username, destination), username, destination);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = accessor.getSessionId() == null ? null : sessionSubscriptions.get(accessor.getSessionId());
+
+        if (subscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        String destination = subscriptions.remove(accessor.getSubscriptionId());
+
+        if (destination != null) {
+            removeSubscription(accessor.getSessionId(), destination);
+        }
+    }
+
+    /**
+     * A session can be reported as disconnected more than once, everything it had is removed only the first time
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+
+        if (subscriptions != null) {
+            subscriptions.values().forEach(destination -> removeSubscription(event.getSessionId(), destination));
+        }
+
+        String username = sessionUsers.remove(event.getSessionId());
+
+        if (username != null) {
+            decrement(onlineUsers, username, username, "");
+        }
+    }
+
+    private void removeSubscription(String sessionId, String destination) {
+        decrement(destinations, destination, "", destination);
+
+        String username = sessionUsers.get(sessionId);
+        if (username != null) {
+            decrement(userDestinations, userDestination(username, destination), username, destination);
+        }
+    }
+
+    private static String userDestination(String username, String destination) {
+        return username + " " + destination;
+    }
+
+    /**
+     * All dialogs of a user share one messages queue, so presence on a dialog page is tracked per dialog
+     *
+     * @param destination is a destination as the user subscribed to it, like /user/queue/messages
+     * @param partner     is a username of the other user of the dialog
+     * @return key the subscription of a dialog page is counted under
+     */
+    public static String dialogDestination(String destination, String partner) {
+        return destination + "#" + partner;
+    }
+
+    /**
+     * These functions change local counters, when a counter appears or disappears, the shared record is updated too
+     * The record is written while the counter's key is locked, otherwise a disconnect racing with a connect
+     * could remove the record after it was saved again, and the user would look offline to other nodes
+     */
+    private void increment(Map<String, Integer> counts, String key, String username, String destination) {
+        counts.compute(key, (k, count) -> {
+            if (count == null && isShared()) {
+                mongoTemplate.save(new PresenceEntry(nodeId, username, destination, new Date(System.currentTimeMillis() + presenceTtl)));
+            }
+
+            return count == null ? 1 : count + 1;
+        });
+    }
+
+    private void decrement(Map<String, Integer> counts, String key, String username, String destination) {
+        counts.computeIfPresent(key, (k, count) -> {
+            if (count > 1) {
+                return count - 1;
+            }
+
+            if (isShared()) {
+                mongoTemplate.remove(new Query(Criteria.where("_id").is(nodeId + "|" + username + "|" + destination)), PresenceEntry.class);
+            }
+
+            return null;
+        });
+    }
+
+    private boolean isShared() {
+        return "relay".equalsIgnoreCase(brokerMode);
+    }
+
+    /**
+     * Answers are cached for a short time, so a user on another node can look absent (or present) a bit longer than they are
+     */
+    private boolean isPresentElsewhere(String username, String destination) {
+        if (!isShared()) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        Pair<Boolean, Long> cached = remotePresence.get(userDestination(username, destination));
+
+        if (cached != null && cached.getValue() > now) {
+            return cached.getKey();
+        }
+
+        boolean present = mongoTemplate.exists(
+                new Query(Criteria.where("username").is(username).and("destination").is(destination).and("nodeId").ne(nodeId)),
+                PresenceEntry.class
+        );
+
+        remotePresence.put(userDestination(username, destination), new Pair<>(present, now + remoteCacheTtl));
+
+        return present;
+    }
+
+    /**
+     * This function extends the life of this node's presence records, so they don't expire while the node is running
+     */
+    @Scheduled(fixedDelayString = "${gitpals.presence.refresh-interval:30000}")
+    public void refreshSharedPresence() {
+        long now = System.currentTimeMillis();
+        remotePresence.values().removeIf(cached -> cached.getValue() <= now);
+
+        if (isShared()) {
+            mongoTemplate.updateMulti(
+                    new Query(Criteria.where("nodeId").is(nodeId)),
+                    new Update().set("expiresAt", new Date(System.currentTimeMillis() + presenceTtl)),
+                    PresenceEntry.class
+            );
+        }
+    }
+
+    /**
+     * When the node stops, its users are not present anymore
+     */
+    @PreDestroy
+    public void removeSharedPresence() {
+        if (isShared()) {
+            mongoTemplate.remove(new Query(Criteria.where("nodeId").is(nodeId)), PresenceEntry.class);
+        }
+    }
+
+    /**
+     * @param destination is a destination, like /topic/messages/{key}
+     * @return true if anyone is subscribed to the destination right now
+     */
+    @Override
+    public boolean isSubscribed(String destination) {
+        return destinations.containsKey(destination) || isPresentElsewhere("", destination);
+    }
+
+    /**
+     * @param username    is a user's username
+     * @param destination is a destination as the user subscribed to it, like /user/queue/messages (see dialogDestination)
+     * @return true if the user is subscribed to the destination in any of their sessions
+     */
+    @Override
+    public boolean isSubscribed(String username, String destination) {
+        return userDestinations.containsKey(userDestination(username, destination)) || isPresentElsewhere(username, destination);
+    }
+
+    /**
+     * @param username is a user's username
+     * @return true if the user has at least one open chat connection
+     */
+    @Override
+    public boolean isOnline(String username) {
+        return onlineUsers.containsKey(username) || isPresentElsewhere(username, "");
+    }
+
+    /**
+     * @param usernames is a list of usernames
+     * @return map, where key is a username and value is true if the user is online
+     */
+    @Override
+    public Map<String, Boolean> getOnlineStatuses(Collection<String> usernames) {
+        Map<String, Boolean> statuses = new LinkedHashMap<>();
+        List<String> notHere = new ArrayList<>();
+
+        for (String username : usernames) {
+            statuses.put(username, onlineUsers.containsKey(username));
+
+            if (!onlineUsers.containsKey(username)) {
+                notHere.add(username);
+            }
+        }
+
+        // Users that are not connected to this node are looked up with one query
+        if (isShared() && !notHere.isEmpty()) {
+            Query query = new Query(Criteria.where("username").in(notHere).and("destination").is(""));
+            query.fields().include("username");
+
+            mongoTemplate.find(query, PresenceEntry.class)
+                    .forEach(entry -> statuses.put(entry.getUsername(), true));
+        }
+
+        return statuses;
+    }
+}
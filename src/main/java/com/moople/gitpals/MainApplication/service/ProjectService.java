@@ -1,17 +1,26 @@
 package com.moople.gitpals.MainApplication.service;
 
-import com.moople.gitpals.MainApplication.model.Comment;
-import com.moople.gitpals.MainApplication.model.Notification;
-import com.moople.gitpals.MainApplication.model.Project;
-import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.model.*;
 import com.moople.gitpals.MainApplication.repository.ProjectRepository;
 import com.moople.gitpals.MainApplication.service.interfaces.ProjectInterface;
+import com.moople.gitpals.MainApplication.tools.Cursor;
 import com.moople.gitpals.MainApplication.tools.Data;
+import com.moople.gitpals.MainApplication.tools.Fetch;
+import com.moople.gitpals.MainApplication.tools.FullTextIndex;
+import com.moople.gitpals.MainApplication.tools.InvertedIndex;
+import com.moople.gitpals.MainApplication.tools.TrigramIndex;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Set;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,6 +32,72 @@ public class ProjectService implements ProjectInterface {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private SuggestionService suggestionService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    private final InvertedIndex technologyIndex = new InvertedIndex();
+    private final InvertedIndex roleIndex = new InvertedIndex();
+    private final TrigramIndex titleIndex = new TrigramIndex();
+    private final FullTextIndex textIndex = new FullTextIndex();
+
+    // Ids of the indexed projects, so a rebuild can find projects deleted on other nodes
+    private final Set<String> indexedIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * This function builds in-memory search indexes on startup
+     * Only fields the indexes need are fetched, later the indexes are updated on every save & delete
+     * In relay mode it is run again periodically (see SearchIndexRefreshService), documents removed meanwhile are dropped
+     */
+    @PostConstruct
+    public void buildSearchIndexes() {
+        Query query = new Query();
+        query.fields()
+                .include("title")
+                .include("description")
+                .include("technologies")
+                .include("requiredRoles")
+                .include("appliedUsersCount");
+
+        List<Project> projects = mongoTemplate.find(query, Project.class);
+        Set<String> stale = new HashSet<>(indexedIds);
+
+        projects.forEach(project -> {
+            index(project);
+            stale.remove(project.getId());
+        });
+        stale.forEach(this::unindex);
+    }
+
+    private void index(Project project) {
+        indexedIds.add(project.getId());
+        technologyIndex.put(project.getId(), project.getTechnologies());
+        roleIndex.put(project.getId(), project.getRequiredRoles());
+        titleIndex.put(project.getId(), project.getTitle());
+        textIndex.put(project.getId(), project.getTitle(), project.getDescription());
+        suggestionService.indexProject(project);
+    }
+
+    private void unindex(String projectId) {
+        technologyIndex.remove(projectId);
+        roleIndex.remove(projectId);
+        titleIndex.remove(projectId);
+        textIndex.remove(projectId);
+        suggestionService.unindexProject(projectId);
+        indexedIds.remove(projectId);
+    }
+
     /**
      * @return list of all projects created from the database
      */
@@ -65,6 +140,100 @@ public class ProjectService implements ProjectInterface {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * This function returns the next portion of the project feed
+     * Only the requested projects are fetched, so the cost doesn't depend on how many projects there are
+     *
+     * @param order  is the way projects are sorted (newest first, most applied first)
+     * @param cursor is a token returned with the previous portion, null to start from the beginning
+     * @param limit  is a max number of projects returned
+     * @return projects along with the cursor for the next portion
+     */
+    @Override
+    public CursorPage<Project> getFeed(FeedOrder order, String cursor, int limit) {
+        Query query = new Query()
+                .with(feedSort(order))
+                .limit(limit + 1);
+
+        Criteria position = positionAfter(order, cursor);
+        if (position != null) {
+            query.addCriteria(position);
+        }
+
+        return toFeedPage(mongoTemplate.find(query, Project.class), order, limit);
+    }
+
+    /**
+     * This function returns a numbered page of the project feed, it is used when there is no cursor (like /page/3)
+     *
+     * @param order    is the way projects are sorted
+     * @param page     is a page number starting from 1
+     * @param pageSize is a number of projects on every page
+     * @return projects on the page along with the cursor for the next page
+     */
+    @Override
+    public CursorPage<Project> getFeedPage(FeedOrder order, int page, int pageSize) {
+        Query query = new Query()
+                .with(feedSort(order))
+                .skip((long) Math.max(page - 1, 0) * pageSize)
+                .limit(pageSize + 1);
+
+        return toFeedPage(mongoTemplate.find(query, Project.class), order, pageSize);
+    }
+
+    private Sort feedSort(FeedOrder order) {
+        if (order == FeedOrder.MOST_APPLIED) {
+            return Sort.by(Sort.Direction.DESC, "appliedUsersCount", "_id");
+        }
+
+        return Sort.by(Sort.Direction.DESC, "_id");
+    }
+
+    /**
+     * This function turns a cursor into a condition, which matches only projects located after the cursor
+     *
+     * @return a condition, or null if the cursor is missing, malformed or was created for another order
+     */
+    private Criteria positionAfter(FeedOrder order, String cursor) {
+        String[] parts = Cursor.decode(cursor, 3);
+
+        if (parts == null || !parts[0].equals(order.name()) || !ObjectId.isValid(parts[2])) {
+            return null;
+        }
+
+        ObjectId lastId = new ObjectId(parts[2]);
+
+        if (order == FeedOrder.MOST_APPLIED) {
+            int lastCount;
+            try {
+                lastCount = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+
+            return new Criteria().orOperator(
+                    Criteria.where("appliedUsersCount").lt(lastCount),
+                    Criteria.where("appliedUsersCount").is(lastCount).and("_id").lt(lastId)
+            );
+        }
+
+        return Criteria.where("_id").lt(lastId);
+    }
+
+    /**
+     * One extra project is always requested, so we know whether there is a next page without counting
+     */
+    private CursorPage<Project> toFeedPage(List<Project> projects, FeedOrder order, int limit) {
+        if (projects.size() <= limit) {
+            return new CursorPage<>(projects, null);
+        }
+
+        projects = projects.subList(0, limit);
+        Project last = projects.get(limit - 1);
+
+        return new CursorPage<>(projects, Cursor.encode(order.name(), String.valueOf(last.getAppliedUsersCount()), last.getId()));
+    }
+
     /**
      * This function returns a list of project which title matches the input
      *
@@ -73,9 +242,25 @@ public class ProjectService implements ProjectInterface {
      */
     @Override
     public List<Project> matchProjectsByProjectTitle(String title) {
-        return projectRepository.findAll().stream()
-                .filter(project -> project.getTitle().toLowerCase().contains(title.toLowerCase()))
-                .collect(Collectors.toList());
+        return Fetch.inOrder(projectRepository, titleIndex.search(title), Project::getId);
+    }
+
+    /**
+     * This function searches projects by words in their titles and descriptions
+     *
+     * @param query    is a text user looks for
+     * @param page     is a page number, starting from 0
+     * @param pageSize is a number of projects on a page
+     * @return projects on the requested page, the most relevant go first
+     */
+    @Override
+    public SearchResults<Project> searchProjects(String query, int page, int pageSize) {
+        List<String> ids = textIndex.search(query);
+
+        int from = (int) Math.min((long) page * pageSize, ids.size());
+        int to = Math.min(from + pageSize, ids.size());
+
+        return new SearchResults<>(Fetch.inOrder(projectRepository, ids.subList(from, to), Project::getId), page, ids.size());
     }
 
     /**
@@ -86,14 +271,23 @@ public class ProjectService implements ProjectInterface {
      */
     @Override
     public List<Project> matchProjectsByTechnologies(List<String> technologies) {
-        return projectRepository.findAll().stream()
-                .filter(project -> technologies.stream()
-                        .anyMatch(tech -> project.getTechnologies()
-                                .stream()
-                                .map(String::toLowerCase)
-                                .collect(Collectors.toList())
-                                .contains(tech.toLowerCase())))
-                .collect(Collectors.toList());
+        return matchProjectsByTechnologies(technologies, MatchMode.ANY);
+    }
+
+    /**
+     * This function returns a list of projects with technologies specified by a user
+     *
+     * @param technologies is a list of technologies project should contain
+     * @param mode         is ANY if a project should have at least one of technologies, ALL if it should have all of them
+     * @return list of projects whose technologies match the user's input, projects with more matches go first
+     */
+    @Override
+    public List<Project> matchProjectsByTechnologies(List<String> technologies, MatchMode mode) {
+        List<String> ids = mode == MatchMode.ALL
+                ? technologyIndex.matchAll(technologies)
+                : technologyIndex.matchAny(technologies);
+
+        return Fetch.inOrder(projectRepository, ids, Project::getId);
     }
 
     /**
@@ -104,14 +298,23 @@ public class ProjectService implements ProjectInterface {
      */
     @Override
     public List<Project> matchProjectsByRoles(List<String> roles) {
-        return projectRepository.findAll().stream()
-                .filter(project -> roles.stream()
-                        .anyMatch(role -> project.getRequiredRoles()
-                                .stream()
-                                .map(String::toLowerCase)
-                                .collect(Collectors.toList())
-                                .contains(role.toLowerCase())))
-                .collect(Collectors.toList());
+        return matchProjectsByRoles(roles, MatchMode.ANY);
+    }
+
+    /**
+     * This function returns a list of projects with roles specified by a user
+     *
+     * @param roles is a list of required roles project should contain
+     * @param mode  is ANY if a project should require at least one of roles, ALL if it should require all of them
+     * @return list of projects whose required roles match the user's input, projects with more matches go first
+     */
+    @Override
+    public List<Project> matchProjectsByRoles(List<String> roles, MatchMode mode) {
+        List<String> ids = mode == MatchMode.ALL
+                ? roleIndex.matchAll(roles)
+                : roleIndex.matchAny(roles);
+
+        return Fetch.inOrder(projectRepository, ids, Project::getId);
     }
 
 
@@ -163,12 +366,7 @@ public class ProjectService implements ProjectInterface {
         if (!comment.getAuthor().equals(project.getAuthorName())) {
 
             // Let the project author know someone has left a comment in a comment section for their project
-            User projectAuthor = userService.findByUsername(project.getAuthorName());
-            Notification notification = new Notification(user.getUsername() + " has left a comment on your project " + project.getTitle() + ": " + comment.getText());
-
-            projectAuthor.getNotifications().getValue().put(notification.getKey(), notification);
-            projectAuthor.getNotifications().setKey(projectAuthor.getNotifications().getKey() + 1);
-            userService.save(projectAuthor);
+            notificationService.add(project.getAuthorName(), NotificationKind.PROJECT_COMMENT, project.getTitle(), project.getTitle(), user.getUsername(), comment.getText());
         }
 
         project.getComments().put(comment.getKey(), comment);
@@ -231,25 +429,19 @@ public class ProjectService implements ProjectInterface {
             userService.save(user);
         }
 
-        // Remove project from everyone who applied to this project
-        // First we stream, it returns list of Strings, map them to User object
-        List<User> allUsers = project.getAppliedUsers().stream()
-                .map(submittedUser -> userService.findByUsername(submittedUser))
-                .collect(Collectors.toList());
-
-        Notification notification = new Notification("A project " + project.getTitle() + " you were applied to has been deleted by the project author");
-        for (User _user : allUsers) {
-            _user.getProjectsAppliedTo().remove(project.getTitle());
-
-            if (_user.getUsername().equals(user.getUsername())) {
-                continue; // Project author doesn't need to get a notification
-            }
+        // Remove project from everyone who applied to this project, all of them are changed by a single update
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("username").in(project.getAppliedUsers())),
+                new Update().pull("projectsAppliedTo", project.getTitle()),
+                User.class
+        );
 
-            _user.getNotifications().setKey(_user.getNotifications().getKey() + 1);
-            _user.getNotifications().getValue().put(notification.getKey(), notification);
+        // Applied users are notified in the background, project author doesn't need to get a notification
+        List<String> notified = project.getAppliedUsers().stream()
+                .filter(username -> !username.equals(user.getUsername()))
+                .collect(Collectors.toList());
 
-            userService.save(_user);
-        }
+        notificationOutboxService.enqueue(notified, "A project " + project.getTitle() + " you were applied to has been deleted by the project author");
     }
 
     /**
@@ -259,7 +451,15 @@ public class ProjectService implements ProjectInterface {
      */
     @Override
     public void save(Project project) {
+        boolean isNewProject = project.getId() == null;
+
+        project.setAppliedUsersCount(project.getAppliedUsers() == null ? 0 : project.getAppliedUsers().size());
         projectRepository.save(project);
+        index(project);
+
+        if (isNewProject) {
+            statisticsService.addProjects(1);
+        }
     }
 
     /**
@@ -270,6 +470,8 @@ public class ProjectService implements ProjectInterface {
     @Override
     public void delete(Project project) {
         projectRepository.delete(project);
+        unindex(project.getId());
+        statisticsService.addProjects(-1);
     }
 
     /**
@@ -286,12 +488,7 @@ public class ProjectService implements ProjectInterface {
             project.getAppliedUsers().add(user.getUsername());
             user.getProjectsAppliedTo().add(project.getTitle());
 
-            User projectAuthor = userService.findByUsername(project.getAuthorName());
-            Notification notification = new Notification(user.getUsername() + " applied to your project " + project.getTitle());
-
-            projectAuthor.getNotifications().getValue().put(notification.getKey(), notification);
-            projectAuthor.getNotifications().setKey(projectAuthor.getNotifications().getKey() + 1);
-            userService.save(projectAuthor);
+            notificationService.add(project.getAuthorName(), NotificationKind.PROJECT_APPLICATION, project.getTitle(), project.getTitle(), user.getUsername(), null);
         } else {
             project.getAppliedUsers().remove(user.getUsername());
             user.getProjectsAppliedTo().remove(project.getTitle());
@@ -0,0 +1,51 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.service.interfaces.SearchIndexRefreshInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Search indexes of projects, users and forum posts live in memory and are updated by this node's saves & deletes
+ * When several nodes run (relay mode), changes made on other nodes are picked up by rebuilding the indexes periodically,
+ * so search results of a node can be behind the database by up to one refresh interval
+ */
+@Service
+public class SearchIndexRefreshService implements SearchIndexRefreshInterface {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexRefreshService.class);
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ForumService forumService;
+
+    @Value("${gitpals.broker.mode:simple}")
+    private String brokerMode;
+
+    /**
+     * This function rebuilds the search indexes from the database, a single node keeps them exact without it
+     */
+    @Override
+    @Scheduled(initialDelayString = "${gitpals.search.refresh-interval:300000}", fixedDelayString = "${gitpals.search.refresh-interval:300000}")
+    public void refresh() {
+        if (!"relay".equalsIgnoreCase(brokerMode)) {
+            return;
+        }
+
+        try {
+            projectService.buildSearchIndexes();
+            userService.buildSearchIndexes();
+            forumService.buildSearchIndexes();
+        } catch (RuntimeException e) {
+            log.error("Could not refresh search indexes, they are refreshed again on the next run", e);
+        }
+    }
+}
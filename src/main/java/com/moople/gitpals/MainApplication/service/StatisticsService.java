@@ -0,0 +1,89 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.repository.ForumRepository;
+import com.moople.gitpals.MainApplication.repository.ProjectRepository;
+import com.moople.gitpals.MainApplication.repository.UserRepository;
+import com.moople.gitpals.MainApplication.service.interfaces.StatisticsInterface;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class StatisticsService implements StatisticsInterface {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ForumRepository forumRepository;
+
+    private final AtomicLong numberOfUsers = new AtomicLong();
+    private final AtomicLong numberOfProjects = new AtomicLong();
+    private final AtomicLong numberOfForumPosts = new AtomicLong();
+
+    /**
+     * @return number of registered users
+     */
+    @Override
+    public long getNumberOfUsers() {
+        return numberOfUsers.get();
+    }
+
+    /**
+     * @return number of published projects
+     */
+    @Override
+    public long getNumberOfProjects() {
+        return numberOfProjects.get();
+    }
+
+    /**
+     * @return number of forum posts
+     */
+    @Override
+    public long getNumberOfForumPosts() {
+        return numberOfForumPosts.get();
+    }
+
+    /**
+     * These functions are called by services whenever they insert or delete an object
+     *
+     * @param delta is 1 when an object is added and -1 when it's removed
+     */
+    @Override
+    public void addUsers(long delta) {
+        numberOfUsers.addAndGet(delta);
+    }
+
+    @Override
+    public void addProjects(long delta) {
+        numberOfProjects.addAndGet(delta);
+    }
+
+    @Override
+    public void addForumPosts(long delta) {
+        numberOfForumPosts.addAndGet(delta);
+    }
+
+    /**
+     * This function counts documents in the database and overwrites the tracked numbers
+     * It runs on startup and then periodically, so any drift (like a deletion of a missing object) is fixed
+     */
+    @Override
+    @PostConstruct
+    @Scheduled(
+            initialDelayString = "${gitpals.statistics.reconcile-interval:600000}",
+            fixedDelayString = "${gitpals.statistics.reconcile-interval:600000}"
+    )
+    public void reconcile() {
+        numberOfUsers.set(userRepository.count());
+        numberOfProjects.set(projectRepository.count());
+        numberOfForumPosts.set(forumRepository.count());
+    }
+}
@@ -0,0 +1,123 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.Project;
+import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.service.interfaces.SuggestionInterface;
+import com.moople.gitpals.MainApplication.tools.SuggestionTrie;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+public class SuggestionService implements SuggestionInterface {
+
+    private final SuggestionTrie usernames = new SuggestionTrie();
+    private final SuggestionTrie projectTitles = new SuggestionTrie();
+    private final SuggestionTrie tags = new SuggestionTrie();
+
+    // What every document has added to the tries, so an update only applies the difference
+    private final Map<String, Map<String, Long>> contributions = new HashMap<>();
+
+    /**
+     * This function returns the most popular completions of the prefix
+     *
+     * @param prefix is what user has typed so far
+     * @param limit  is a maximum number of completions of each kind
+     * @return map of usernames, project titles and tags (technologies, roles & skills) that start with the prefix
+     */
+    @Override
+    public Map<String, List<String>> suggest(String prefix, int limit) {
+        Map<String, List<String>> suggestions = new LinkedHashMap<>();
+
+        suggestions.put("users", usernames.top(prefix, limit));
+        suggestions.put("projects", projectTitles.top(prefix, limit));
+        suggestions.put("tags", tags.top(prefix, limit));
+
+        return suggestions;
+    }
+
+    /**
+     * This function adds a user's username & skills to suggestions or updates them
+     * Skills are weighted by the number of users and projects that mention them
+     *
+     * @param user is a user object
+     */
+    @Override
+    public void indexUser(User user) {
+        update(usernames, "user:" + user.getUsername(), Collections.singletonMap(user.getUsername(), 1L));
+        update(tags, "user-tags:" + user.getUsername(), ones(user.getSkillList()));
+    }
+
+    /**
+     * This function removes a user's username & skills from suggestions
+     *
+     * @param username is a user's username
+     */
+    @Override
+    public void unindexUser(String username) {
+        update(usernames, "user:" + username, Collections.emptyMap());
+        update(tags, "user-tags:" + username, Collections.emptyMap());
+    }
+
+    /**
+     * This function adds a project's title, technologies & roles to suggestions or updates them
+     * Projects that more users applied to are suggested first
+     *
+     * @param project is a project object
+     */
+    @Override
+    public void indexProject(Project project) {
+        Set<String> projectTags = new HashSet<>();
+
+        if (project.getTechnologies() != null) {
+            projectTags.addAll(project.getTechnologies());
+        }
+        if (project.getRequiredRoles() != null) {
+            projectTags.addAll(project.getRequiredRoles());
+        }
+
+        update(projectTitles, "project:" + project.getId(),
+                Collections.singletonMap(project.getTitle(), 1L + project.getAppliedUsersCount()));
+        update(tags, "project-tags:" + project.getId(), ones(projectTags));
+    }
+
+    /**
+     * This function removes a project's title, technologies & roles from suggestions
+     *
+     * @param projectId is a project id
+     */
+    @Override
+    public void unindexProject(String projectId) {
+        update(projectTitles, "project:" + projectId, Collections.emptyMap());
+        update(tags, "project-tags:" + projectId, Collections.emptyMap());
+    }
+
+    private static Map<String, Long> ones(Collection<String> terms) {
+        Map<String, Long> weights = new HashMap<>();
+
+        if (terms != null) {
+            terms.stream()
+                    .filter(Objects::nonNull)
+                    .forEach(term -> weights.put(term, 1L));
+        }
+
+        return weights;
+    }
+
+    private synchronized void update(SuggestionTrie trie, String source, Map<String, Long> weights) {
+        Map<String, Long> previous = contributions.getOrDefault(source, Collections.emptyMap());
+
+        previous.forEach((term, weight) -> {
+            if (!weights.containsKey(term)) {
+                trie.add(term, -weight);
+            }
+        });
+        weights.forEach((term, weight) -> trie.add(term, weight - previous.getOrDefault(term, 0L)));
+
+        if (weights.isEmpty()) {
+            contributions.remove(source);
+        } else {
+            contributions.put(source, new HashMap<>(weights));
+        }
+    }
+}
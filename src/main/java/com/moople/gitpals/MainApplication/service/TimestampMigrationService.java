@@ -0,0 +1,189 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.ForumPost;
+import com.moople.gitpals.MainApplication.model.MessageBucket;
+import com.moople.gitpals.MainApplication.service.interfaces.TimestampMigrationInterface;
+import com.moople.gitpals.MainApplication.tools.Timestamps;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Rewrites timestamps of forum posts and messages that are still stored as strings into epoch milliseconds
+ * Documents are read as they are stored, so strings are parsed here (see Timestamps.parse)
+ * Until a document is rewritten, its timestamps are converted when it is loaded (see MongoConfiguration)
+ */
+@Service
+public class TimestampMigrationService implements TimestampMigrationInterface {
+
+    private static final Logger log = LoggerFactory.getLogger(TimestampMigrationService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    @Qualifier("migrationExecutor")
+    private TaskExecutor migrationExecutor;
+
+    // Number of documents rewritten by one bulk request
+    @Value("${gitpals.migration.batch-size:500}")
+    private int batchSize;
+
+    // Becomes true once no forum post has a string timestamp, until then the forum feed can't rely on the index order
+    private volatile boolean forumPostsMigrated;
+
+    /**
+     * The migration is started in the background once the application is ready, so it doesn't delay the start
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInBackground() {
+        migrationExecutor.execute(() -> {
+            try {
+                int migrated = migrate();
+
+                if (migrated > 0) {
+                    log.info("Converted timestamps of {} documents", migrated);
+                }
+            } catch (RuntimeException e) {
+                log.error("Timestamp migration has failed, it will be retried on the next start", e);
+            }
+        });
+    }
+
+    /**
+     * This function converts string timestamps of all forum posts and messages
+     *
+     * @return number of documents rewritten
+     */
+    @Override
+    public int migrate() {
+        int migrated = migrateForumPosts();
+        forumPostsMigrated = !mongoTemplate.exists(stringTimeStamps(), "forumPosts");
+
+        return migrated + migrateMessageBuckets();
+    }
+
+    /**
+     * This function tells whether every forum post has a numeric timestamp
+     *
+     * @return true if the forum post migration has finished
+     */
+    @Override
+    public boolean areForumPostsMigrated() {
+        return forumPostsMigrated;
+    }
+
+    private Query stringTimeStamps() {
+        return new Query(Criteria.where("timeStamp").type(BsonType.STRING.getValue()));
+    }
+
+    /**
+     * A post is rewritten only if its timestamp hasn't been changed meanwhile
+     */
+    private int migrateForumPosts() {
+        Query query = stringTimeStamps();
+        query.fields().include("timeStamp");
+
+        int migrated = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ForumPost.class);
+        int pending = 0;
+
+        try (CloseableIterator<Document> posts = mongoTemplate.stream(query, Document.class, "forumPosts")) {
+            while (posts.hasNext()) {
+                Document post = posts.next();
+                String timeStamp = post.getString("timeStamp");
+
+                bulk.updateOne(
+                        new Query(Criteria.where("_id").is(post.get("_id")).and("timeStamp").is(timeStamp)),
+                        new Update().set("timeStamp", parse(timeStamp, post.get("_id")))
+                );
+
+                if (++pending == batchSize) {
+                    migrated += bulk.execute().getModifiedCount();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ForumPost.class);
+                    pending = 0;
+                }
+            }
+        }
+
+        if (pending > 0) {
+            migrated += bulk.execute().getModifiedCount();
+        }
+
+        return migrated;
+    }
+
+    /**
+     * Buckets are rewritten only if no message was added to them meanwhile,
+     * a bucket that has changed is converted on the next run
+     */
+    private int migrateMessageBuckets() {
+        Query query = new Query(Criteria.where("messages.timeStamp").type(BsonType.STRING.getValue()));
+        query.fields()
+                .include("messages")
+                .include("count");
+
+        int migrated = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MessageBucket.class);
+        int pending = 0;
+
+        try (CloseableIterator<Document> buckets = mongoTemplate.stream(query, Document.class, "messages")) {
+            while (buckets.hasNext()) {
+                Document bucket = buckets.next();
+                List<?> messages = bucket.get("messages", List.class);
+
+                messages.forEach(message -> {
+                    if (message instanceof Document && ((Document) message).get("timeStamp") instanceof String) {
+                        Document document = (Document) message;
+                        document.put("timeStamp", parse(document.getString("timeStamp"), bucket.get("_id")));
+                    }
+                });
+
+                bulk.updateOne(
+                        new Query(Criteria.where("_id").is(bucket.get("_id")).and("count").is(bucket.get("count"))),
+                        new Update().set("messages", messages)
+                );
+
+                if (++pending == batchSize) {
+                    migrated += bulk.execute().getModifiedCount();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MessageBucket.class);
+                    pending = 0;
+                }
+            }
+        }
+
+        if (pending > 0) {
+            migrated += bulk.execute().getModifiedCount();
+        }
+
+        return migrated;
+    }
+
+    /**
+     * A timestamp that can't be read is written as 0, its old value is logged, so it can be fixed by hand
+     */
+    private long parse(String timeStamp, Object documentId) {
+        try {
+            return Timestamps.parse(timeStamp);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unreadable timestamp '{}' of document {} is replaced with 0", timeStamp, documentId);
+            return 0;
+        }
+    }
+}
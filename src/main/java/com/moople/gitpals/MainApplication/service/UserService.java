@@ -1,15 +1,20 @@
 package com.moople.gitpals.MainApplication.service;
 
-import com.moople.gitpals.MainApplication.model.Pair;
 import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.model.UserProfile;
 import com.moople.gitpals.MainApplication.repository.UserRepository;
 import com.moople.gitpals.MainApplication.service.interfaces.UserInterface;
+import com.moople.gitpals.MainApplication.tools.InvertedIndex;
+import com.moople.gitpals.MainApplication.tools.TrigramIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Set;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,6 +23,57 @@ public class UserService implements UserInterface {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SuggestionService suggestionService;
+
+    private final InvertedIndex skillIndex = new InvertedIndex();
+    private final TrigramIndex usernameIndex = new TrigramIndex();
+
+    // Usernames of the indexed users, so a rebuild can find users deleted on other nodes
+    private final Set<String> indexedUsernames = ConcurrentHashMap.newKeySet();
+
+    /**
+     * This function builds in-memory search indexes on startup
+     * Only fields the indexes need are fetched, later the indexes are updated on every save & delete
+     * In relay mode it is run again periodically (see SearchIndexRefreshService), documents removed meanwhile are dropped
+     */
+    @PostConstruct
+    public void buildSearchIndexes() {
+        Query query = new Query();
+        query.fields()
+                .include("username")
+                .include("skillList");
+
+        List<User> users = mongoTemplate.find(query, User.class);
+        Set<String> stale = new HashSet<>(indexedUsernames);
+
+        users.forEach(user -> {
+            index(user);
+            stale.remove(user.getUsername());
+        });
+        stale.forEach(this::unindex);
+    }
+
+    private void index(User user) {
+        indexedUsernames.add(user.getUsername());
+        skillIndex.put(user.getUsername(), user.getSkillList());
+        usernameIndex.put(user.getUsername(), user.getUsername());
+        suggestionService.indexUser(user);
+    }
+
+    private void unindex(String username) {
+        skillIndex.remove(username);
+        usernameIndex.remove(username);
+        suggestionService.unindexUser(username);
+        indexedUsernames.remove(username);
+    }
+
     /**
      * This function finds a user by the username
      *
@@ -47,13 +103,20 @@ public class UserService implements UserInterface {
      */
     @Override
     public List<User> matchUsersByUsername(String username) {
-        return userRepository.findAll()
-                .stream()
-                .filter(user -> user.getUsername().toLowerCase().contains(username.toLowerCase()))
-                .peek(user -> {
-                    user.setDialogs(null);
-                    user.setNotifications(null);
-                })
+        List<String> usernames = usernameIndex.search(username);
+
+        // Dialogs and notifications are private and heavy, so they are not even fetched
+        Query query = new Query(Criteria.where("username").in(usernames));
+        query.fields()
+                .exclude("dialogs")
+                .exclude("notifications");
+
+        Map<String, User> users = new HashMap<>();
+        mongoTemplate.find(query, User.class).forEach(user -> users.put(user.getUsername(), user));
+
+        return usernames.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
@@ -61,59 +124,47 @@ public class UserService implements UserInterface {
      * This function finds users based on their skills
      *
      * @param skills is a list of skills a user should have in order to be found
-     * @return list of users who have skills enumerated in the list
+     * @return usernames of users who have skills enumerated in the list, users with more matching skills go first
      */
     @Override
     public Set<String> findBySkillList(List<String> skills) {
-        return userRepository.findAll().stream()
-                .filter(user -> skills
-                        .stream()
-                        .anyMatch(skill -> user.getSkillList()
-                                .stream()
-                                .map(String::toLowerCase)
-                                .collect(Collectors.toList())
-                                .contains(skill.toLowerCase())))
-                .map(User::getUsername)
-                .collect(Collectors.toSet());
+        return new LinkedHashSet<>(skillIndex.matchAny(skills));
     }
 
     /**
-     * This request removes a specific user's notification
+     * This function finds users based on their skills and returns their public profiles
+     * All profiles are fetched in one query, and only the fields a profile consists of are loaded
      *
-     * @param username        is a user's name, whose notification will be removed
-     * @param notificationKey is a unique key so we could find it in the database
+     * @param skills is a list of skills a user should have in order to be found
+     * @return profiles of users who have skills enumerated in the list, users with more matching skills go first
      */
     @Override
-    public boolean removeNotification(String username, String notificationKey) {
-        User userDB = findByUsername(username);
-
-        if (userDB != null && userDB.getNotifications().getValue().containsKey(notificationKey)) {
-            userDB.getNotifications().getValue().remove(notificationKey);
-            save(userDB);
-
-            return true;
-        }
-
-        return false;
+    public List<UserProfile> findProfilesBySkillList(List<String> skills) {
+        return findProfiles(skillIndex.matchAny(skills));
     }
 
     /**
-     * This request removes all user's notifications
+     * This function fetches public profiles of users in a single query and keeps the order of usernames
      *
-     * @param username is a user's name, whose notifications will be removed
+     * @param usernames is a list of usernames
+     * @return list of profiles
      */
     @Override
-    public boolean removeAllNotifications(String username) {
-        User userDB = findByUsername(username);
-
-        if (userDB != null) {
-            userDB.setNotifications(new Pair<>(0, new HashMap<>()));
-            save(userDB);
-
-            return true;
+    public List<UserProfile> findProfiles(List<String> usernames) {
+        Query query = new Query(Criteria.where("username").in(usernames));
+        query.fields().include("_id");
+        for (String field : UserProfile.fields()) {
+            query.fields().include(field);
         }
 
-        return false;
+        Map<String, UserProfile> profiles = new HashMap<>();
+        mongoTemplate.find(query, User.class)
+                .forEach(user -> profiles.put(user.getUsername(), new UserProfile(user)));
+
+        return usernames.stream()
+                .map(profiles::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -125,7 +176,14 @@ public class UserService implements UserInterface {
      */
     @Override
     public void save(User user) {
+        boolean isNewUser = user.getId() == null;
+
         userRepository.save(user);
+        index(user);
+
+        if (isNewUser) {
+            statisticsService.addUsers(1);
+        }
     }
 
     /**
@@ -136,5 +194,7 @@ public class UserService implements UserInterface {
     @Override
     public void delete(User user) {
         userRepository.delete(user);
+        unindex(user.getUsername());
+        statisticsService.addUsers(-1);
     }
 }
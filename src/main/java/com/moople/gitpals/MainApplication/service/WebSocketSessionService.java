@@ -0,0 +1,147 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.service.interfaces.WebSocketSessionInterface;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps all open websocket sessions and closes sessions of clients that are silent for too long
+ * Clients that are too slow are closed by Spring (see send-buffer-size-limit and send-time-limit), this service only counts them
+ */
+@Service
+public class WebSocketSessionService implements WebSocketSessionInterface {
+
+    @Autowired
+    @Qualifier("clientInboundChannelExecutor")
+    private ThreadPoolTaskExecutor inboundExecutor;
+
+    @Autowired
+    @Qualifier("clientOutboundChannelExecutor")
+    private ThreadPoolTaskExecutor outboundExecutor;
+
+    @Autowired
+    private WebSocketMessageBrokerStats brokerStats;
+
+    // Sessions that haven't sent anything (not even a heartbeat) for this time (ms) are closed
+    @Value("${gitpals.websocket.idle-timeout:120000}")
+    private long idleTimeout;
+
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    // Key is a session id, value is the last time (epoch ms) the client has sent something
+    private final Map<String, Long> lastActivity = new ConcurrentHashMap<>();
+
+    private final AtomicLong evictedSessions = new AtomicLong();
+
+    /**
+     * This function creates a thread pool with a fixed number of threads and a limited queue
+     * When the queue is full, the task is run by the thread that submits it, which slows the producer down instead of using more memory
+     *
+     * @param threadNamePrefix is a prefix of pool's thread names
+     * @param poolSize         is a number of threads
+     * @param queueCapacity    is a maximum number of waiting tasks
+     * @return a pool, which is not initialized yet
+     */
+    public static ThreadPoolTaskExecutor boundedExecutor(String threadNamePrefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+        return executor;
+    }
+
+    /**
+     * This function starts tracking a new session
+     *
+     * @param session is a new websocket session
+     */
+    @Override
+    public void register(WebSocketSession session) {
+        sessions.put(session.getId(), session);
+        lastActivity.put(session.getId(), System.currentTimeMillis());
+    }
+
+    @Override
+    public void unregister(String sessionId) {
+        sessions.remove(sessionId);
+        lastActivity.remove(sessionId);
+    }
+
+    @Override
+    public void touch(String sessionId) {
+        lastActivity.computeIfPresent(sessionId, (id, time) -> System.currentTimeMillis());
+    }
+
+    /**
+     * This function closes sessions of clients that went silent, e.g. a phone that lost connection without closing it
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${gitpals.websocket.reaper-interval:30000}")
+    public void reapIdleSessions() {
+        long now = System.currentTimeMillis();
+
+        lastActivity.forEach((sessionId, time) -> {
+            WebSocketSession session = sessions.get(sessionId);
+
+            if (session != null && now - time > idleTimeout) {
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason("Idle session"));
+                } catch (IOException | RuntimeException e) {
+                    // The connection is broken anyway, the session is removed when it's closed
+                }
+            }
+        });
+    }
+
+    @Override
+    public void recordEviction() {
+        evictedSessions.incrementAndGet();
+    }
+
+    /**
+     * This function returns numbers that show how loaded the websocket part of the application is
+     *
+     * @return map of statistics
+     */
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        stats.put("sessions", sessions.size());
+        stats.put("evictedSessions", evictedSessions.get());
+        stats.put("inboundPool", poolStats(inboundExecutor));
+        stats.put("outboundPool", poolStats(outboundExecutor));
+        stats.put("websocketSessions", brokerStats.getWebSocketSessionStatsInfo());
+        stats.put("stompFrames", brokerStats.getStompSubProtocolStatsInfo());
+
+        return stats;
+    }
+
+    private static Map<String, Integer> poolStats(ThreadPoolTaskExecutor executor) {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+
+        stats.put("threads", executor.getPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getThreadPoolExecutor().getQueue().size());
+
+        return stats;
+    }
+}
@@ -0,0 +1,25 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+import com.moople.gitpals.MainApplication.model.CursorPage;
+import com.moople.gitpals.MainApplication.model.Message;
+import com.moople.gitpals.MainApplication.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ConversationInterface {
+    void append(Message message);
+
+    void appendAll(List<Message> messages);
+
+    CursorPage<Message> getHistory(String username, String partner, String cursor, int limit);
+
+    List<Message> getMessagesSince(String username, String partner, long since, int limit);
+
+    Map<String, Long> countMessages(String username, Collection<String> partners);
+
+    void migrate(User user);
+
+    int migrateAll();
+}
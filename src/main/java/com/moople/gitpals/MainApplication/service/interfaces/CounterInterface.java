@@ -0,0 +1,21 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+import com.moople.gitpals.MainApplication.model.UnreadCounter;
+
+import java.util.Collection;
+
+public interface CounterInterface {
+    UnreadCounter get(String username);
+
+    void incrementDialog(String owner, String partner);
+
+    void incrementDialog(String owner, String partner, long delta);
+
+    void incrementDialog(String owner, String partner, Collection<String> messageIds);
+
+    void resetDialog(String owner, String partner);
+
+    long incrementNotifications(String username, long delta);
+
+    void resetNotifications(String username);
+}
@@ -0,0 +1,15 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+import com.moople.gitpals.MainApplication.model.DialogSummary;
+import com.moople.gitpals.MainApplication.model.PendingMessage;
+import com.moople.gitpals.MainApplication.model.User;
+
+import java.util.List;
+
+public interface DialogSummaryInterface {
+    List<DialogSummary> getDialogs(User user);
+
+    void recordAll(List<PendingMessage> messages);
+
+    void markAsRead(String owner, String partner);
+}
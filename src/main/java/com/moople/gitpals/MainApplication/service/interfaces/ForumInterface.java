@@ -1,17 +1,26 @@
 package com.moople.gitpals.MainApplication.service.interfaces;
 
 import com.moople.gitpals.MainApplication.model.Comment;
+import com.moople.gitpals.MainApplication.model.CursorPage;
 import com.moople.gitpals.MainApplication.model.ForumPost;
+import com.moople.gitpals.MainApplication.model.ForumPostSummary;
+import com.moople.gitpals.MainApplication.model.SearchResults;
 
 import java.util.List;
 
 public interface ForumInterface {
     List<ForumPost> findAll();
 
+    List<ForumPost> findPublishedBetween(Long since, Long before, int limit);
+
+    CursorPage<ForumPostSummary> getFeed(String cursor, int limit);
+
     List<ForumPost> findByAuthor(String author);
 
     List<ForumPost> matchForumPostsByTitle(String title);
 
+    SearchResults<ForumPost> searchForumPosts(String query, int page, int pageSize);
+
     ForumPost findByKey(String key);
 
     void addComment(ForumPost post, String username, Comment comment);
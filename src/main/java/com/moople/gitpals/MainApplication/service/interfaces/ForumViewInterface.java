@@ -0,0 +1,23 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+import com.moople.gitpals.MainApplication.model.ForumPost;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ForumViewInterface {
+    void addView(String postKey, String username);
+
+    void flush();
+
+    long getViews(String postKey);
+
+    Map<String, Long> getViews(Collection<String> postKeys);
+
+    void fillViews(List<ForumPost> posts);
+
+    void remove(String postKey);
+
+    int migrate();
+}
@@ -7,6 +7,8 @@ import java.util.List;
 public interface KeyStorageInterface {
     KeyStorage findByUsername(String username);
 
+    String findKey(String username);
+
     List<KeyStorage> findAll();
 
     void save(KeyStorage keyStorage);
@@ -0,0 +1,9 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+import com.moople.gitpals.MainApplication.model.Message;
+
+public interface MessagePersistenceInterface {
+    void submit(Message message, boolean unread);
+
+    int getQueueSize();
+}
@@ -0,0 +1,26 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+import com.moople.gitpals.MainApplication.model.CursorPage;
+import com.moople.gitpals.MainApplication.model.Notification;
+import com.moople.gitpals.MainApplication.model.NotificationKind;
+import com.moople.gitpals.MainApplication.model.User;
+
+import java.util.Collection;
+
+public interface NotificationInterface {
+    Notification add(String username, NotificationKind kind, String target, String title, String actor, String detail);
+
+    void deliver(String eventId, Collection<String> usernames, String text);
+
+    CursorPage<Notification> getPage(String username, String cursor, int limit);
+
+    boolean remove(String username, String key);
+
+    void removeAll(String username);
+
+    void markAllAsSeen(String username);
+
+    void migrate(User user);
+
+    int migrateAll();
+}
@@ -0,0 +1,9 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+import java.util.Collection;
+
+public interface NotificationOutboxInterface {
+    void enqueue(Collection<String> recipients, String text);
+
+    void dispatch();
+}
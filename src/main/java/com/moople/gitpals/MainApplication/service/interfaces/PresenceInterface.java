@@ -0,0 +1,14 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface PresenceInterface {
+    boolean isSubscribed(String destination);
+
+    boolean isSubscribed(String username, String destination);
+
+    boolean isOnline(String username);
+
+    Map<String, Boolean> getOnlineStatuses(Collection<String> usernames);
+}
@@ -1,7 +1,11 @@
 package com.moople.gitpals.MainApplication.service.interfaces;
 
 import com.moople.gitpals.MainApplication.model.Comment;
+import com.moople.gitpals.MainApplication.model.CursorPage;
+import com.moople.gitpals.MainApplication.model.FeedOrder;
+import com.moople.gitpals.MainApplication.model.MatchMode;
 import com.moople.gitpals.MainApplication.model.Project;
+import com.moople.gitpals.MainApplication.model.SearchResults;
 import com.moople.gitpals.MainApplication.model.User;
 
 import java.util.List;
@@ -16,12 +20,22 @@ public interface ProjectInterface {
 
     List<Project> getFixedNumberOfProjects(int amount);
 
+    CursorPage<Project> getFeed(FeedOrder order, String cursor, int limit);
+
+    CursorPage<Project> getFeedPage(FeedOrder order, int page, int pageSize);
+
     List<Project> matchProjectsByProjectTitle(String title);
 
+    SearchResults<Project> searchProjects(String query, int page, int pageSize);
+
     List<Project> matchProjectsByTechnologies(List<String> technologies);
 
+    List<Project> matchProjectsByTechnologies(List<String> technologies, MatchMode mode);
+
     List<Project> matchProjectsByRoles(List<String> roles);
 
+    List<Project> matchProjectsByRoles(List<String> roles, MatchMode mode);
+
     void editProjectInfo(Project project, String newTitle, String author, String description, String repoLink, Set<String> technologies, Set<String> roles);
 
     void sendComment(Project project, Comment comment, User user);
@@ -0,0 +1,5 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+public interface SearchIndexRefreshInterface {
+    void refresh();
+}
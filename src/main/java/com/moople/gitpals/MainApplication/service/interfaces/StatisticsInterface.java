@@ -0,0 +1,17 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+public interface StatisticsInterface {
+    long getNumberOfUsers();
+
+    long getNumberOfProjects();
+
+    long getNumberOfForumPosts();
+
+    void addUsers(long delta);
+
+    void addProjects(long delta);
+
+    void addForumPosts(long delta);
+
+    void reconcile();
+}
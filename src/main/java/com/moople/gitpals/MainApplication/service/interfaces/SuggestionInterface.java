@@ -0,0 +1,19 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+import com.moople.gitpals.MainApplication.model.Project;
+import com.moople.gitpals.MainApplication.model.User;
+
+import java.util.List;
+import java.util.Map;
+
+public interface SuggestionInterface {
+    Map<String, List<String>> suggest(String prefix, int limit);
+
+    void indexUser(User user);
+
+    void unindexUser(String username);
+
+    void indexProject(Project project);
+
+    void unindexProject(String projectId);
+}
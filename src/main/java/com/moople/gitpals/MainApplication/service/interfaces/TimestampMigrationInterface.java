@@ -0,0 +1,7 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+public interface TimestampMigrationInterface {
+    int migrate();
+
+    boolean areForumPostsMigrated();
+}
@@ -1,6 +1,7 @@
 package com.moople.gitpals.MainApplication.service.interfaces;
 
 import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.model.UserProfile;
 
 import java.util.List;
 import java.util.Set;
@@ -14,9 +15,9 @@ public interface UserInterface {
 
     Set<String> findBySkillList(List<String> skills);
 
-    boolean removeNotification(String username, String notificationKey);
+    List<UserProfile> findProfilesBySkillList(List<String> skills);
 
-    boolean removeAllNotifications(String username);
+    List<UserProfile> findProfiles(List<String> usernames);
 
     void save(User user);
 
@@ -0,0 +1,19 @@
+package com.moople.gitpals.MainApplication.service.interfaces;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+
+public interface WebSocketSessionInterface {
+    void register(WebSocketSession session);
+
+    void unregister(String sessionId);
+
+    void touch(String sessionId);
+
+    void reapIdleSessions();
+
+    void recordEviction();
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,44 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+public class Cursor {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * This function packs a position in a sorted list into an opaque, url-safe token
+     *
+     * @param parts are values that describe the last item a client has seen (like sort value and id)
+     * @return a token the client sends back to get the next page
+     */
+    public static String encode(String... parts) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(String.join(SEPARATOR, parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * This function unpacks a token created by encode()
+     *
+     * @param cursor        is a token sent by a client
+     * @param expectedParts is a number of values the token should contain
+     * @return values the token consists of, or null if the token is missing or malformed
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        if (cursor == null || cursor.trim().isEmpty()) {
+            return null;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(Pattern.quote(SEPARATOR), -1);
+
+            return parts.length == expectedParts ? parts : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
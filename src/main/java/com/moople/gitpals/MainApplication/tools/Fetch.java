@@ -0,0 +1,32 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class Fetch {
+
+    /**
+     * This function fetches documents by ids in a single query and keeps the order of ids
+     * Search indexes return ids sorted by relevance, while the database returns documents in any order
+     *
+     * @param repository is a repository the documents are stored in
+     * @param ids        are document ids, sorted the way we want documents to be sorted
+     * @param getId      returns an id of a document
+     * @return list of documents, ids that are not found are skipped
+     */
+    public static <T> List<T> inOrder(CrudRepository<T, String> repository, List<String> ids, Function<T, String> getId) {
+        Map<String, T> documents = new HashMap<>();
+        repository.findAllById(ids).forEach(document -> documents.put(getId.apply(document), document));
+
+        return ids.stream()
+                .map(documents::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
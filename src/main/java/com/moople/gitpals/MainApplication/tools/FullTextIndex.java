@@ -0,0 +1,153 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory full-text index, documents consist of a title and a body
+ * Every term keeps how many times each document mentions it, results are ranked with BM25
+ * Words in a title count more than words in a body
+ */
+public class FullTextIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    private final Map<String, Set<String>> documentTerms = new HashMap<>();
+    private final Map<String, Integer> documentLengths = new HashMap<>();
+    private long totalLength;
+
+    /**
+     * This function splits a text into lowercase words, punctuation & spaces are dropped
+     *
+     * @param text is any text
+     * @return list of words in the order they appear
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return new ArrayList<>();
+        }
+
+        return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{Nd}]+"))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * This function adds a document to the index or replaces the one indexed before
+     *
+     * @param documentId is a document id
+     * @param title      is a title of the document
+     * @param body       is a text of the document
+     */
+    public void put(String documentId, String title, String body) {
+        if (documentId == null) {
+            return;
+        }
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(title).forEach(term -> frequencies.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(body).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(documentId);
+
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, k -> new HashMap<>()).put(documentId, frequency));
+            documentTerms.put(documentId, frequencies.keySet());
+            documentLengths.put(documentId, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This function removes a document from the index
+     *
+     * @param documentId is a document id
+     */
+    public void remove(String documentId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeUnlocked(String documentId) {
+        Set<String> terms = documentTerms.remove(documentId);
+
+        if (terms == null) {
+            return;
+        }
+
+        for (String term : terms) {
+            Map<String, Integer> documents = postings.get(term);
+            documents.remove(documentId);
+
+            if (documents.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+
+        totalLength -= documentLengths.remove(documentId);
+    }
+
+    /**
+     * This function finds documents that contain any word of the query
+     *
+     * @param query is a text user looks for
+     * @return ids of documents, sorted by relevance (the most relevant go first)
+     */
+    public List<String> search(String query) {
+        Set<String> terms = new HashSet<>(tokenize(query));
+
+        lock.readLock().lock();
+        try {
+            int numberOfDocuments = documentLengths.size();
+
+            if (numberOfDocuments == 0) {
+                return new ArrayList<>();
+            }
+
+            double averageLength = (double) totalLength / numberOfDocuments;
+            Map<String, Double> scores = new HashMap<>();
+
+            for (String term : terms) {
+                Map<String, Integer> documents = postings.get(term);
+
+                if (documents == null) {
+                    continue;
+                }
+
+                double idf = Math.log(1 + (numberOfDocuments - documents.size() + 0.5) / (documents.size() + 0.5));
+
+                documents.forEach((documentId, frequency) -> {
+                    double norm = K1 * (1 - B + B * documentLengths.get(documentId) / averageLength);
+                    double score = idf * frequency * (K1 + 1) / (frequency + norm);
+
+                    scores.merge(documentId, score, Double::sum);
+                });
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
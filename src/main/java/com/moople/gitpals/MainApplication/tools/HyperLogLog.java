@@ -0,0 +1,111 @@
+package com.moople.gitpals.MainApplication.tools;
+
+/**
+ * HyperLogLog sketch, it estimates a number of distinct values using a fixed amount of memory
+ * Every value is hashed, the first bits of the hash choose a register and the register keeps the longest run of leading zeros seen in the rest
+ * With 256 registers the typical error is about 6.5%, no matter how many values are added
+ */
+public class HyperLogLog {
+
+    public static final int PRECISION = 8;
+    public static final int REGISTERS = 1 << PRECISION;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    /**
+     * This function returns a 64-bit hash of a value (FNV-1a with a final bit mix, so that similar values get unrelated hashes)
+     *
+     * @param value is a value
+     * @return hash of the value
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    /**
+     * @param hash is a hash of a value
+     * @return index of the register the value goes to
+     */
+    public static int index(long hash) {
+        return (int) (hash >>> (64 - PRECISION));
+    }
+
+    /**
+     * @param hash is a hash of a value
+     * @return position of the first 1 bit after the index bits, this is what a register stores
+     */
+    public static int rank(long hash) {
+        return Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+    }
+
+    /**
+     * This function adds a value to the sketch
+     *
+     * @param value is a value
+     */
+    public void offer(String value) {
+        long hash = hash(value);
+        set(index(hash), rank(hash));
+    }
+
+    /**
+     * This function updates a register, a register only grows, so sketches are merged by taking the maximum of each register
+     *
+     * @param index is a register index
+     * @param rank  is a rank of a value
+     */
+    public void set(int index, int rank) {
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * @param index is a register index
+     * @return value of the register
+     */
+    public int get(int index) {
+        return registers[index];
+    }
+
+    /**
+     * This function estimates a number of distinct values added to the sketch
+     * Small numbers are estimated by the number of empty registers (linear counting), which is more accurate for them
+     *
+     * @return estimated number of distinct values
+     */
+    public long estimate() {
+        double sum = 0;
+        int empty = 0;
+
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+
+            if (register == 0) {
+                empty++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+
+        if (estimate <= 2.5 * REGISTERS && empty > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / empty);
+        }
+
+        return Math.round(estimate);
+    }
+}
@@ -0,0 +1,219 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index from a term (like a technology or a skill) to documents that contain it
+ * Every document id gets a small number (ordinal), so a posting list is a bitmap of ordinals
+ * Freed ordinals are reused, so bitmaps stay dense no matter how many documents are added and removed
+ */
+public class InvertedIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> documents = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final Map<Integer, Set<String>> documentTerms = new HashMap<>();
+    private final Map<String, BitSet> postings = new HashMap<>();
+
+    /**
+     * Terms are compared case-insensitively and without surrounding spaces
+     */
+    public static String normalize(String term) {
+        return term == null ? "" : term.trim().toLowerCase();
+    }
+
+    private static Set<String> normalize(Collection<String> terms) {
+        if (terms == null) {
+            return new HashSet<>();
+        }
+
+        return terms.stream()
+                .map(InvertedIndex::normalize)
+                .filter(term -> !term.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * This function adds a document to the index or replaces terms of a document that is already indexed
+     *
+     * @param documentId is a unique document id
+     * @param terms      are the document's terms
+     */
+    public void put(String documentId, Collection<String> terms) {
+        if (documentId == null) {
+            return;
+        }
+
+        Set<String> newTerms = normalize(terms);
+
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(documentId);
+
+            if (ordinal == null) {
+                ordinal = freeOrdinals.isEmpty() ? documents.size() : freeOrdinals.pop();
+
+                if (ordinal == documents.size()) {
+                    documents.add(documentId);
+                } else {
+                    documents.set(ordinal, documentId);
+                }
+
+                ordinals.put(documentId, ordinal);
+            }
+
+            Set<String> oldTerms = documentTerms.getOrDefault(ordinal, Collections.emptySet());
+
+            for (String term : oldTerms) {
+                if (!newTerms.contains(term)) {
+                    clearPosting(term, ordinal);
+                }
+            }
+
+            for (String term : newTerms) {
+                if (!oldTerms.contains(term)) {
+                    postings.computeIfAbsent(term, key -> new BitSet()).set(ordinal);
+                }
+            }
+
+            documentTerms.put(ordinal, newTerms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This function removes a document from the index
+     *
+     * @param documentId is a unique document id
+     */
+    public void remove(String documentId) {
+        if (documentId == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(documentId);
+
+            if (ordinal == null) {
+                return;
+            }
+
+            for (String term : documentTerms.remove(ordinal)) {
+                clearPosting(term, ordinal);
+            }
+
+            documents.set(ordinal, null);
+            freeOrdinals.push(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clearPosting(String term, int ordinal) {
+        BitSet posting = postings.get(term);
+
+        if (posting != null) {
+            posting.clear(ordinal);
+
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * This function finds documents that contain at least one of the terms
+     *
+     * @param terms are terms we are looking for
+     * @return ids of documents, the ones containing more of the terms go first
+     */
+    public List<String> matchAny(Collection<String> terms) {
+        lock.readLock().lock();
+        try {
+            List<BitSet> lists = postingsOf(normalize(terms));
+            BitSet union = new BitSet();
+            lists.forEach(union::or);
+
+            Map<Integer, Integer> overlap = new HashMap<>();
+            for (int ordinal = union.nextSetBit(0); ordinal >= 0; ordinal = union.nextSetBit(ordinal + 1)) {
+                int count = 0;
+                for (BitSet posting : lists) {
+                    if (posting.get(ordinal)) {
+                        count++;
+                    }
+                }
+                overlap.put(ordinal, count);
+            }
+
+            return overlap.entrySet().stream()
+                    .sorted((a, b) -> b.getValue().equals(a.getValue())
+                            ? Integer.compare(a.getKey(), b.getKey())
+                            : Integer.compare(b.getValue(), a.getValue()))
+                    .map(entry -> documents.get(entry.getKey()))
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This function finds documents that contain every one of the terms
+     *
+     * @param terms are terms we are looking for
+     * @return ids of documents that contain all the terms
+     */
+    public List<String> matchAll(Collection<String> terms) {
+        lock.readLock().lock();
+        try {
+            Set<String> normalized = normalize(terms);
+            List<BitSet> lists = postingsOf(normalized);
+
+            if (normalized.isEmpty() || lists.size() < normalized.size()) {
+                return new ArrayList<>();
+            }
+
+            // Start with the shortest list, so the intersection shrinks as fast as possible
+            lists.sort(Comparator.comparingInt(BitSet::cardinality));
+            BitSet intersection = (BitSet) lists.get(0).clone();
+            for (int i = 1; i < lists.size() && !intersection.isEmpty(); i++) {
+                intersection.and(lists.get(i));
+            }
+
+            List<String> result = new ArrayList<>();
+            for (int ordinal = intersection.nextSetBit(0); ordinal >= 0; ordinal = intersection.nextSetBit(ordinal + 1)) {
+                result.add(documents.get(ordinal));
+            }
+
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of documents that contain the term
+     */
+    public int frequency(String term) {
+        lock.readLock().lock();
+        try {
+            BitSet posting = postings.get(normalize(term));
+            return posting == null ? 0 : posting.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<BitSet> postingsOf(Set<String> terms) {
+        return terms.stream()
+                .map(postings::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
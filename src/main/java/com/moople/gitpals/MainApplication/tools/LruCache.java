@@ -0,0 +1,61 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded in-memory cache, when it is full the least recently used value is dropped
+ */
+public class LruCache<K, V> {
+
+    private final Map<K, V> values;
+
+    public LruCache(int capacity) {
+        this.values = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * This function returns a cached value or loads it if it isn't cached
+     * Missing values (null) are not cached, so they are looked up again next time
+     *
+     * @param key    is a key
+     * @param loader is a function that finds a value, like a database query
+     * @return value or null if the loader didn't find it
+     */
+    public V get(K key, Function<K, V> loader) {
+        synchronized (values) {
+            V value = values.get(key);
+
+            if (value != null) {
+                return value;
+            }
+        }
+
+        // The loader is called without the lock, so a slow query doesn't block other keys
+        V value = loader.apply(key);
+
+        if (value != null) {
+            put(key, value);
+        }
+
+        return value;
+    }
+
+    public void put(K key, V value) {
+        synchronized (values) {
+            values.put(key, value);
+        }
+    }
+
+    public void remove(K key) {
+        synchronized (values) {
+            values.remove(key);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import java.util.*;
+
+/**
+ * In-memory prefix tree used for autocomplete, every term has a popularity weight
+ * Each node also remembers the biggest weight in its subtree,
+ * so the most popular completions are found without walking the whole subtree
+ */
+public class SuggestionTrie {
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private long weight;
+        private long maxWeight;
+        private String term;
+    }
+
+    private final Node root = new Node();
+
+    private static String normalize(String term) {
+        return term == null ? "" : term.trim().toLowerCase();
+    }
+
+    /**
+     * This function changes weight of a term, the term is added if it wasn't present before
+     * When weight of a term drops to zero, the term is removed
+     *
+     * @param term  is a term (like username or project title), the way it should be displayed
+     * @param delta is a value weight changes by
+     */
+    public synchronized void add(String term, long delta) {
+        String key = normalize(term);
+
+        if (key.isEmpty() || delta == 0) {
+            return;
+        }
+
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        path.push(node);
+
+        for (char c : key.toCharArray()) {
+            node = node.children.computeIfAbsent(c, k -> new Node());
+            path.push(node);
+        }
+
+        node.weight = Math.max(node.weight + delta, 0);
+        node.term = node.weight > 0 ? term.trim() : null;
+
+        // Walk back to the root, fix subtree maximums and drop branches that have no terms anymore
+        for (int i = key.length(); i >= 0; i--) {
+            Node current = path.pop();
+
+            current.maxWeight = current.weight;
+            for (Node child : current.children.values()) {
+                current.maxWeight = Math.max(current.maxWeight, child.maxWeight);
+            }
+
+            if (i > 0 && current.maxWeight == 0) {
+                path.peek().children.remove(key.charAt(i - 1));
+            }
+        }
+    }
+
+    /**
+     * This function returns the most popular terms that start with the prefix, case is ignored
+     *
+     * @param prefix is what user has typed so far
+     * @param limit  is a maximum number of terms returned
+     * @return terms sorted by weight, the heaviest go first
+     */
+    public synchronized List<String> top(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        Node node = root;
+
+        for (char c : normalize(prefix).toCharArray()) {
+            node = node.children.get(c);
+
+            if (node == null) {
+                return result;
+            }
+        }
+
+        // Queue holds both subtrees (by their maximum) and terms (by their own weight)
+        // A term is taken only when nothing left in the queue can be heavier than it
+        PriorityQueue<Map.Entry<Long, Object>> queue = new PriorityQueue<>(
+                (a, b) -> Long.compare(b.getKey(), a.getKey())
+        );
+        queue.add(new AbstractMap.SimpleEntry<>(node.maxWeight, node));
+
+        while (!queue.isEmpty() && result.size() < limit) {
+            Object next = queue.poll().getValue();
+
+            if (next instanceof String) {
+                result.add((String) next);
+                continue;
+            }
+
+            Node current = (Node) next;
+            if (current.term != null) {
+                queue.add(new AbstractMap.SimpleEntry<>(current.weight, current.term));
+            }
+            for (Node child : current.children.values()) {
+                queue.add(new AbstractMap.SimpleEntry<>(child.maxWeight, child));
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,37 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+
+public class Timestamps {
+
+    // Format of Date.toString(), which was used to store timestamps before
+    private static final String LEGACY_FORMAT = "EEE MMM dd HH:mm:ss zzz yyyy";
+
+    /**
+     * This function turns a stored timestamp into epoch milliseconds
+     * Both numbers and old Date.toString() values are accepted
+     *
+     * @param value is a stored timestamp
+     * @return epoch milliseconds, or 0 if the value is empty
+     * @throws IllegalArgumentException if the value is neither a number nor an old timestamp
+     */
+    public static long parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ignored) {
+            // Not a number, must be an old timestamp
+        }
+
+        try {
+            return new SimpleDateFormat(LEGACY_FORMAT, Locale.US).parse(value.trim()).getTime();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Unreadable timestamp: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory substring ("contains") index over short texts like titles & usernames
+ * Every text is split into trigrams (three-letter pieces), trigrams are stored in an inverted index
+ * A query is answered by intersecting postings of its trigrams and then checking that candidates really contain the query
+ */
+public class TrigramIndex {
+
+    private static final int GRAM = 3;
+
+    private final InvertedIndex trigrams = new InvertedIndex();
+    private final Map<String, String> texts = new ConcurrentHashMap<>();
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase();
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> result = new HashSet<>();
+
+        // Inverted index trims its terms, so whitespace is replaced to keep trigrams like "a b" or "   " intact
+        String escaped = text.replaceAll("\\s", "_");
+        for (int i = 0; i + GRAM <= escaped.length(); i++) {
+            result.add(escaped.substring(i, i + GRAM));
+        }
+
+        return result;
+    }
+
+    /**
+     * This function adds a text to the index or replaces the one the document had before
+     *
+     * @param documentId is a document id (like project id or username)
+     * @param text       is a text to be searched in
+     */
+    public void put(String documentId, String text) {
+        if (documentId == null) {
+            return;
+        }
+
+        String normalized = normalize(text);
+
+        texts.put(documentId, normalized);
+        trigrams.put(documentId, trigramsOf(normalized));
+    }
+
+    /**
+     * This function removes a document from the index
+     *
+     * @param documentId is a document id
+     */
+    public void remove(String documentId) {
+        if (documentId == null) {
+            return;
+        }
+
+        texts.remove(documentId);
+        trigrams.remove(documentId);
+    }
+
+    /**
+     * This function finds documents whose text contains the query, case is ignored
+     * Queries shorter than a trigram can't use postings, so they are checked against stored texts
+     *
+     * @param query is a piece of text we look for
+     * @return ids of documents whose text contains the query
+     */
+    public List<String> search(String query) {
+        String normalized = normalize(query);
+
+        if (normalized.length() < GRAM) {
+            return texts.entrySet().stream()
+                    .filter(entry -> entry.getValue().contains(normalized))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        }
+
+        return trigrams.matchAll(trigramsOf(normalized)).stream()
+                .filter(documentId -> {
+                    String text = texts.get(documentId);
+                    return text != null && text.contains(normalized);
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,178 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Append-only local log of records that are not stored in the database yet
+ * Every record gets a sequence number, a checkpoint remembers the sequence number all records up to which reached the database
+ * Records may be stored out of order, the checkpoint only moves past a record once everything before it is stored too
+ * After a crash, records after the checkpoint are read back and written again
+ * When everything is checkpointed, the log file is truncated, so it never grows big
+ * When the log is opened, it is rewritten with the records that are not checkpointed, which drops a record cut by a crash
+ */
+public class WriteAheadLog<T> implements Closeable {
+
+    private final Path logFile;
+    private final Path checkpointFile;
+    private final ObjectMapper mapper;
+    private final Class<T> type;
+    private final boolean sync;
+
+    private FileOutputStream stream;
+    private Writer writer;
+
+    private long lastSequence;
+    private long checkpoint;
+
+    // Sequence numbers of records that are appended, but not stored yet
+    private final TreeSet<Long> outstanding = new TreeSet<>();
+
+    /**
+     * @param logFile is a file records are appended to, a checkpoint is stored next to it
+     * @param mapper  is used to write records as json
+     * @param type    is a class of records
+     * @param sync    is true if every record should be forced to disk before append() returns
+     */
+    public WriteAheadLog(Path logFile, ObjectMapper mapper, Class<T> type, boolean sync) throws IOException {
+        this.logFile = logFile;
+        this.checkpointFile = logFile.resolveSibling(logFile.getFileName() + ".checkpoint");
+        this.mapper = mapper;
+        this.type = type;
+        this.sync = sync;
+
+        if (logFile.getParent() != null) {
+            Files.createDirectories(logFile.getParent());
+        }
+
+        if (Files.exists(checkpointFile)) {
+            checkpoint = Long.parseLong(new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8).trim());
+        }
+
+        Map<Long, T> records = readUncheckpointed();
+
+        lastSequence = checkpoint;
+        for (long sequence : records.keySet()) {
+            lastSequence = Math.max(lastSequence, sequence);
+            outstanding.add(sequence);
+        }
+
+        // A record cut in the middle by a crash would spoil the record appended after it,
+        // so the log is rewritten with just the records that could be read
+        rewrite(records);
+
+        stream = new FileOutputStream(logFile.toFile(), true);
+        writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * This function appends a record to the log
+     *
+     * @param record is a record object
+     * @return sequence number of the record
+     */
+    public synchronized long append(T record) throws IOException {
+        long sequence = lastSequence + 1;
+
+        writer.write(sequence + "\t" + mapper.writeValueAsString(record) + "\n");
+        writer.flush();
+
+        if (sync) {
+            stream.getChannel().force(false);
+        }
+
+        lastSequence = sequence;
+        outstanding.add(sequence);
+
+        return sequence;
+    }
+
+    /**
+     * This function remembers that records are stored in the database and moves the checkpoint if possible
+     *
+     * @param sequences are sequence numbers of stored records
+     */
+    public synchronized void complete(Collection<Long> sequences) throws IOException {
+        outstanding.removeAll(sequences);
+
+        long sequence = outstanding.isEmpty() ? lastSequence : outstanding.first() - 1;
+
+        if (sequence <= checkpoint) {
+            return;
+        }
+
+        checkpoint = sequence;
+
+        Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.write(temporary, String.valueOf(sequence).getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Nothing is waiting to be stored, the log can start from scratch
+        if (checkpoint >= lastSequence) {
+            writer.flush();
+            stream.getChannel().truncate(0);
+        }
+    }
+
+    /**
+     * This function reads records that were appended but not checkpointed (they might not be in the database)
+     *
+     * @return map, where key is a sequence number and value is a record, in the order records were appended
+     */
+    public synchronized Map<Long, T> readUncheckpointed() throws IOException {
+        Map<Long, T> records = readAll();
+        new ArrayList<>(records.keySet()).stream()
+                .filter(sequence -> sequence <= checkpoint)
+                .forEach(records::remove);
+
+        return records;
+    }
+
+    private void rewrite(Map<Long, T> records) throws IOException {
+        Path temporary = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+
+        try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Long, T> record : records.entrySet()) {
+                out.write(record.getKey() + "\t" + mapper.writeValueAsString(record.getValue()) + "\n");
+            }
+        }
+
+        Files.move(temporary, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Map<Long, T> readAll() throws IOException {
+        Map<Long, T> records = new LinkedHashMap<>();
+
+        if (!Files.exists(logFile)) {
+            return records;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+
+                // The last line might be cut in the middle if the process crashed while writing it
+                try {
+                    records.put(Long.parseLong(line.substring(0, separator)), mapper.readValue(line.substring(separator + 1), type));
+                } catch (IOException | RuntimeException e) {
+                    break;
+                }
+            }
+        }
+
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,42 @@
+// Logged in users get new notifications while the page is open, without reloading it
+(function () {
+    var badge = document.getElementById('notifications-badge');
+
+    // The badge is only shown to logged in users
+    if (badge == null) {
+        return;
+    }
+
+    var stompClient = Stomp.over(new SockJS('/gitpals-messages'));
+    stompClient.debug = function () {};
+
+    stompClient.connect({}, function () {
+        stompClient.subscribe('/user/queue/notifications', function (frame) {
+            var event = JSON.parse(frame.body);
+
+            badge.textContent = event.unreadNotifications;
+            badge.style.display = event.unreadNotifications > 0 ? 'inline' : 'none';
+
+            showSnackbar(event.notification.text);
+        });
+    });
+
+    function showSnackbar(text) {
+        var snackbar = document.getElementById('snackbar');
+
+        if (snackbar == null) {
+            return;
+        }
+
+        document.getElementById('snackbar-text').textContent = text;
+
+        var link = document.getElementById('snackbar-link');
+        link.href = '/notifications';
+        link.textContent = 'Open notifications';
+
+        snackbar.className = 'show';
+        setTimeout(function () {
+            snackbar.className = '';
+        }, 5000);
+    }
+})();
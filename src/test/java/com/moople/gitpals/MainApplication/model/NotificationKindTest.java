@@ -0,0 +1,63 @@
+package com.moople.gitpals.MainApplication.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class NotificationKindTest {
+
+    private static Notification merged(int count, String... actors) {
+        Notification notification = new Notification("text");
+        notification.setCount(count);
+        notification.setActors(actors == null ? null : Arrays.asList(actors));
+        return notification;
+    }
+
+    @Test
+    public void singleEventShowsItsDetail() {
+        assertEquals(
+                "bob has left a comment on your forum post (Hiring) -- Nice idea",
+                NotificationKind.FORUM_COMMENT.text("bob", "Hiring", 1, "Nice idea")
+        );
+        assertEquals("bob applied to your project gitpals", NotificationKind.PROJECT_APPLICATION.text("bob", "gitpals", 1, null));
+    }
+
+    @Test
+    public void mergedEventsShowTheirNumberAndLatestActor() {
+        assertEquals(
+                "3 users applied to your project gitpals, the latest is bob",
+                NotificationKind.PROJECT_APPLICATION.text("bob", "gitpals", 3, null)
+        );
+        assertEquals(
+                "2 new comments on your project gitpals, the latest by bob",
+                NotificationKind.PROJECT_COMMENT.text("bob", "gitpals", 2, "Nice idea")
+        );
+    }
+
+    @Test
+    public void applicationsCountDistinctUsers() {
+        // One user applied, withdrew and applied again
+        assertEquals(1, NotificationKind.PROJECT_APPLICATION.count(merged(3, "alice")));
+        assertEquals(2, NotificationKind.PROJECT_APPLICATION.count(merged(3, "alice", "bob")));
+
+        Notification notification = merged(3, "alice");
+        assertEquals(
+                "alice applied to your project gitpals",
+                NotificationKind.PROJECT_APPLICATION.text("alice", "gitpals", NotificationKind.PROJECT_APPLICATION.count(notification), null)
+        );
+    }
+
+    @Test
+    public void commentsCountEvents() {
+        assertEquals(3, NotificationKind.PROJECT_COMMENT.count(merged(3, "alice")));
+        assertEquals(3, NotificationKind.FORUM_COMMENT.count(merged(3, "alice")));
+    }
+
+    @Test
+    public void notificationsWithoutActorsCountOneUser() {
+        assertEquals(1, NotificationKind.PROJECT_APPLICATION.count(merged(2, (String[]) null)));
+        assertEquals(1, NotificationKind.PROJECT_APPLICATION.count(merged(2)));
+    }
+}
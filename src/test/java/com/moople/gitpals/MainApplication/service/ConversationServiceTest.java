@@ -0,0 +1,127 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.CursorPage;
+import com.moople.gitpals.MainApplication.model.Message;
+import com.moople.gitpals.MainApplication.model.MessageBucket;
+import com.moople.gitpals.MainApplication.tools.Cursor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConversationServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private ConversationService conversationService;
+
+    private MessageBucket older;
+    private MessageBucket newer;
+
+    private static MessageBucket bucket(String id, String conversationId, long createdAt, String... contents) {
+        List<Message> messages = new ArrayList<>();
+
+        for (String content : contents) {
+            messages.add(new Message("alice", "bob", content, Message.TYPE.REGULAR_MESSAGE));
+        }
+
+        MessageBucket bucket = new MessageBucket();
+        bucket.setId(id);
+        bucket.setConversationId(conversationId);
+        bucket.setCreatedAt(new Date(createdAt));
+        bucket.setMessages(messages);
+        bucket.setCount(messages.size());
+        return bucket;
+    }
+
+    private static List<String> contents(CursorPage<Message> page) {
+        return page.getItems().stream().map(Message::getContent).collect(Collectors.toList());
+    }
+
+    @Before
+    public void setUp() {
+        older = bucket("b1", "alice:bob", 1000, "m0", "m1", "m2");
+        newer = bucket("b2", "alice:bob", 2000, "m3", "m4", "m5");
+    }
+
+    @Test
+    public void firstPageHasNewestMessagesOldestFirst() {
+        when(mongoTemplate.findOne(any(Query.class), eq(MessageBucket.class))).thenReturn(newer, older);
+
+        CursorPage<Message> page = conversationService.getHistory("alice", "bob", null, 4);
+
+        assertEquals(Arrays.asList("m2", "m3", "m4", "m5"), contents(page));
+        assertEquals(Cursor.encode("b1", "2"), page.getNextCursor());
+    }
+
+    @Test
+    public void cursorContinuesWhereThePreviousPageEnded() {
+        when(mongoTemplate.findById("b1", MessageBucket.class)).thenReturn(older);
+        when(mongoTemplate.findOne(any(Query.class), eq(MessageBucket.class))).thenReturn(null);
+
+        CursorPage<Message> page = conversationService.getHistory("bob", "alice", Cursor.encode("b1", "2"), 4);
+
+        assertEquals(Arrays.asList("m0", "m1"), contents(page));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void pageEndingAtBucketStartPointsAtOlderBucket() {
+        when(mongoTemplate.findOne(any(Query.class), eq(MessageBucket.class))).thenReturn(newer, older);
+
+        CursorPage<Message> page = conversationService.getHistory("alice", "bob", null, 3);
+
+        assertEquals(Arrays.asList("m3", "m4", "m5"), contents(page));
+        assertEquals(Cursor.encode("b1", "3"), page.getNextCursor());
+    }
+
+    @Test
+    public void emptyConversationHasNoMessages() {
+        when(mongoTemplate.findOne(any(Query.class), eq(MessageBucket.class))).thenReturn(null);
+
+        CursorPage<Message> page = conversationService.getHistory("alice", "bob", null, 10);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void cursorOfAnotherConversationReturnsNothing() {
+        when(mongoTemplate.findById("b3", MessageBucket.class)).thenReturn(bucket("b3", "alice:carol", 1000, "secret"));
+
+        CursorPage<Message> page = conversationService.getHistory("alice", "bob", Cursor.encode("b3", "1"), 10);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void cursorWithBrokenPositionReturnsNothing() {
+        when(mongoTemplate.findById("b1", MessageBucket.class)).thenReturn(older);
+
+        CursorPage<Message> page = conversationService.getHistory("alice", "bob", Cursor.encode("b1", "last"), 10);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+}
@@ -0,0 +1,91 @@
+package com.moople.gitpals.MainApplication.service;
+
+import com.moople.gitpals.MainApplication.model.User;
+import com.moople.gitpals.MainApplication.model.UserProfile;
+import org.bson.Document;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private UserService userService;
+
+    private static User user(String username, String... skills) {
+        User user = new User();
+        user.setUsername(username);
+        user.setBio("Hi, I am " + username);
+        user.setSkillList(new HashSet<>(Arrays.asList(skills)));
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+
+    @Test
+    public void findProfilesFetchesOnlyProfileFieldsInOneQuery() {
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(Collections.singletonList(user("alice", "Java")));
+
+        userService.findProfiles(Collections.singletonList("alice"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).find(query.capture(), eq(User.class));
+
+        Document fields = query.getValue().getFieldsObject();
+        for (String field : UserProfile.fields()) {
+            assertEquals(1, fields.get(field));
+        }
+        assertFalse(fields.containsKey("dialogs"));
+        assertFalse(fields.containsKey("notifications"));
+        assertFalse(fields.containsKey("email"));
+        assertFalse(fields.containsKey("mobileAuthPassword"));
+    }
+
+    @Test
+    public void findProfilesKeepsTheOrderOfUsernames() {
+        // The database returns users in its own order
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(Arrays.asList(user("carol"), user("alice", "Java"), user("bob", "Go")));
+
+        List<UserProfile> profiles = userService.findProfiles(Arrays.asList("bob", "alice", "carol"));
+
+        assertEquals(Arrays.asList("bob", "alice", "carol"),
+                profiles.stream().map(UserProfile::getUsername).collect(Collectors.toList()));
+        assertEquals(Collections.singleton("Go"), profiles.get(0).getSkillList());
+        assertEquals("Hi, I am alice", profiles.get(1).getBio());
+    }
+
+    @Test
+    public void findProfilesSkipsUsersThatDontExist() {
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(Collections.singletonList(user("alice")));
+
+        List<UserProfile> profiles = userService.findProfiles(Arrays.asList("ghost", "alice"));
+
+        assertEquals(1, profiles.size());
+        assertEquals("alice", profiles.get(0).getUsername());
+    }
+}
@@ -0,0 +1,47 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CursorTest {
+
+    @Test
+    public void decodeReturnsEncodedParts() {
+        String cursor = Cursor.encode("1571234567890", "5da99c95fa5c10a2cda3e4fe");
+
+        assertArrayEquals(new String[]{"1571234567890", "5da99c95fa5c10a2cda3e4fe"}, Cursor.decode(cursor, 2));
+    }
+
+    @Test
+    public void emptyPartsAreKept() {
+        assertArrayEquals(new String[]{"", "id"}, Cursor.decode(Cursor.encode("", "id"), 2));
+    }
+
+    @Test
+    public void cursorIsUrlSafe() {
+        String cursor = Cursor.encode("??>>", "~~~~", "\u00ff\u00ff\u00ff");
+
+        assertFalse(cursor.contains("+"));
+        assertFalse(cursor.contains("/"));
+        assertFalse(cursor.contains("="));
+    }
+
+    @Test
+    public void missingCursorIsNull() {
+        assertNull(Cursor.decode(null, 2));
+        assertNull(Cursor.decode("", 2));
+        assertNull(Cursor.decode("   ", 2));
+    }
+
+    @Test
+    public void cursorWithAnotherNumberOfPartsIsNull() {
+        assertNull(Cursor.decode(Cursor.encode("a", "b", "c"), 2));
+        assertNull(Cursor.decode(Cursor.encode("a"), 2));
+    }
+
+    @Test
+    public void malformedCursorIsNull() {
+        assertNull(Cursor.decode("not a cursor!", 2));
+    }
+}
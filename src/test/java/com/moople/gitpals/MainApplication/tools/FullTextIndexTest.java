@@ -0,0 +1,69 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FullTextIndexTest {
+
+    private FullTextIndex index;
+
+    @Before
+    public void setUp() {
+        index = new FullTextIndex();
+        index.put("1", "Chat application", "Messages are sent over websockets");
+        index.put("2", "Game", "A chat is shown next to the game board");
+        index.put("3", "Blog", "Posts and comments");
+    }
+
+    @Test
+    public void tokenizeDropsPunctuationAndCase() {
+        assertEquals(Arrays.asList("spring", "boot", "2", "\u00fcber", "cool"), FullTextIndex.tokenize("Spring-Boot 2, \u00dcber cool!"));
+        assertTrue(FullTextIndex.tokenize(null).isEmpty());
+        assertTrue(FullTextIndex.tokenize("  ...  ").isEmpty());
+    }
+
+    @Test
+    public void wordsInTitleRankHigher() {
+        assertEquals(Arrays.asList("1", "2"), index.search("chat"));
+    }
+
+    @Test
+    public void anyWordOfQueryMatches() {
+        assertEquals(new HashSet<>(Arrays.asList("1", "3")), new HashSet<>(index.search("comments websockets")));
+    }
+
+    @Test
+    public void documentsMatchingMoreWordsGoFirst() {
+        assertEquals("2", index.search("chat game").get(0));
+    }
+
+    @Test
+    public void unknownWordsFindNothing() {
+        assertTrue(index.search("kotlin").isEmpty());
+        assertTrue(new FullTextIndex().search("chat").isEmpty());
+    }
+
+    @Test
+    public void putReplacesTheOldDocument() {
+        index.put("1", "Forum", "Threads and replies");
+
+        assertEquals(Collections.singletonList("2"), index.search("chat"));
+        assertEquals(Collections.singletonList("1"), index.search("forum"));
+    }
+
+    @Test
+    public void removedDocumentsAreNotFound() {
+        index.remove("2");
+        index.remove("unknown");
+
+        assertEquals(Collections.singletonList("1"), index.search("chat"));
+        assertTrue(index.search("game").isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void emptySketchEstimatesZero() {
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    public void repeatedValuesAreCountedOnce() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        for (int i = 0; i < 100; i++) {
+            sketch.offer("alice");
+        }
+
+        assertEquals(1, sketch.estimate());
+    }
+
+    @Test
+    public void smallNumbersAreAlmostExact() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        for (int i = 0; i < 20; i++) {
+            sketch.offer("user" + i);
+        }
+
+        assertTrue(Math.abs(sketch.estimate() - 20) <= 1);
+    }
+
+    @Test
+    public void largeNumbersAreEstimatedWithinError() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        for (int i = 0; i < 100000; i++) {
+            sketch.offer("user" + i);
+        }
+
+        // Typical error is 6.5%, three times that is still a pass
+        assertTrue(Math.abs(sketch.estimate() - 100000) < 100000 * 0.2);
+    }
+
+    @Test
+    public void mergedSketchEqualsSketchOfAllValues() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog all = new HyperLogLog();
+
+        for (int i = 0; i < 1000; i++) {
+            (i % 2 == 0 ? first : second).offer("user" + i);
+            all.offer("user" + i);
+        }
+
+        for (int i = 0; i < HyperLogLog.REGISTERS; i++) {
+            first.set(i, second.get(i));
+        }
+
+        for (int i = 0; i < HyperLogLog.REGISTERS; i++) {
+            assertEquals(all.get(i), first.get(i));
+        }
+
+        assertEquals(all.estimate(), first.estimate());
+    }
+
+    @Test
+    public void registersOnlyGrow() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        sketch.set(5, 7);
+        sketch.set(5, 3);
+
+        assertEquals(7, sketch.get(5));
+    }
+
+    @Test
+    public void indexAndRankFitRegisters() {
+        for (int i = 0; i < 1000; i++) {
+            long hash = HyperLogLog.hash("user" + i);
+
+            assertTrue(HyperLogLog.index(hash) >= 0 && HyperLogLog.index(hash) < HyperLogLog.REGISTERS);
+            assertTrue(HyperLogLog.rank(hash) >= 1 && HyperLogLog.rank(hash) <= 64 - HyperLogLog.PRECISION + 1);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @Before
+    public void setUp() {
+        index = new InvertedIndex();
+        index.put("1", Arrays.asList("Java", "Spring", "MongoDB"));
+        index.put("2", Arrays.asList("Java", "Android"));
+        index.put("3", Arrays.asList("Python", "Django"));
+    }
+
+    @Test
+    public void matchAnyPutsDocumentsWithMoreTermsFirst() {
+        assertEquals(Arrays.asList("1", "2", "3"), index.matchAny(Arrays.asList("java", "spring", "django")));
+        assertEquals(Arrays.asList("2", "1"), index.matchAny(Arrays.asList("android", "java")));
+    }
+
+    @Test
+    public void matchAllIntersectsPostings() {
+        assertEquals(Collections.singletonList("1"), index.matchAll(Arrays.asList("java", "mongodb")));
+        assertEquals(Arrays.asList("1", "2"), index.matchAll(Collections.singletonList("java")));
+        assertTrue(index.matchAll(Arrays.asList("java", "django")).isEmpty());
+    }
+
+    @Test
+    public void matchAllNeedsEveryTermToBeKnown() {
+        assertTrue(index.matchAll(Arrays.asList("java", "kotlin")).isEmpty());
+        assertTrue(index.matchAll(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void termsAreNormalized() {
+        assertEquals(Collections.singletonList("3"), index.matchAny(Collections.singletonList("  PYTHON ")));
+        assertEquals(2, index.frequency("JAVA"));
+    }
+
+    @Test
+    public void putReplacesTermsOfADocument() {
+        index.put("2", Arrays.asList("Kotlin", "Android"));
+
+        assertEquals(Collections.singletonList("1"), index.matchAny(Collections.singletonList("java")));
+        assertEquals(Collections.singletonList("2"), index.matchAll(Arrays.asList("kotlin", "android")));
+        assertEquals(1, index.frequency("java"));
+    }
+
+    @Test
+    public void removedDocumentsAreNotFound() {
+        index.remove("1");
+
+        assertEquals(Collections.singletonList("2"), index.matchAny(Arrays.asList("java", "spring")));
+        assertEquals(0, index.frequency("spring"));
+        assertEquals(0, index.frequency("mongodb"));
+    }
+
+    @Test
+    public void freedOrdinalsAreReusedByNewDocuments() {
+        index.remove("1");
+        index.put("4", Arrays.asList("Java", "Spring"));
+
+        assertEquals(new HashSet<>(Arrays.asList("2", "4")), new HashSet<>(index.matchAny(Collections.singletonList("java"))));
+        assertEquals(Collections.singletonList("4"), index.matchAll(Arrays.asList("java", "spring")));
+        assertTrue(index.matchAny(Collections.singletonList("mongodb")).isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SuggestionTrieTest {
+
+    private SuggestionTrie trie;
+
+    @Before
+    public void setUp() {
+        trie = new SuggestionTrie();
+        trie.add("Java", 10);
+        trie.add("JavaScript", 25);
+        trie.add("Jakarta EE", 3);
+        trie.add("Kotlin", 7);
+    }
+
+    @Test
+    public void heaviestCompletionsGoFirst() {
+        assertEquals(Arrays.asList("JavaScript", "Java", "Jakarta EE"), trie.top("ja", 10));
+        assertEquals(Arrays.asList("JavaScript", "Java"), trie.top("JAV", 10));
+    }
+
+    @Test
+    public void limitKeepsTheHeaviest() {
+        assertEquals(Collections.singletonList("JavaScript"), trie.top("j", 1));
+        assertEquals(Arrays.asList("JavaScript", "Java", "Kotlin"), trie.top("", 3));
+    }
+
+    @Test
+    public void unknownPrefixHasNoCompletions() {
+        assertTrue(trie.top("py", 10).isEmpty());
+    }
+
+    @Test
+    public void weightChangesReorderCompletions() {
+        trie.add("Java", 20);
+
+        assertEquals(Arrays.asList("Java", "JavaScript"), trie.top("jav", 10));
+    }
+
+    @Test
+    public void termsWithoutWeightAreRemoved() {
+        trie.add("JavaScript", -25);
+        trie.add("Jakarta EE", -100);
+
+        assertEquals(Collections.singletonList("Java"), trie.top("ja", 10));
+    }
+
+    @Test
+    public void tiesAreAllReturnedAfterHeavierTerms() {
+        trie.add("Jade", 10);
+        trie.add("Jasmine", 10);
+
+        List<String> top = trie.top("ja", 4);
+
+        assertEquals("JavaScript", top.get(0));
+        assertEquals(new HashSet<>(Arrays.asList("Java", "Jade", "Jasmine")), new HashSet<>(top.subList(1, 4)));
+    }
+
+    @Test
+    public void limitCutsThroughTies() {
+        trie.add("Jade", 10);
+
+        List<String> top = trie.top("ja", 2);
+
+        assertEquals(2, top.size());
+        assertEquals("JavaScript", top.get(0));
+        assertTrue(top.get(1).equals("Java") || top.get(1).equals("Jade"));
+    }
+}
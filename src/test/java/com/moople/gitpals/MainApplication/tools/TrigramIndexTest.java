@@ -0,0 +1,68 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @Before
+    public void setUp() {
+        index = new TrigramIndex();
+        index.put("1", "Spring Boot chat");
+        index.put("2", "Android game");
+        index.put("3", "Chat bot for Telegram");
+    }
+
+    @Test
+    public void findsSubstringsIgnoringCase() {
+        assertEquals(new HashSet<>(Arrays.asList("1", "3")), new HashSet<>(index.search("CHAT")));
+        assertEquals(Collections.singletonList("2"), index.search("droid"));
+    }
+
+    @Test
+    public void candidatesMustContainTheWholeQuery() {
+        // Every trigram of "bot chat" is in document 3, but not the text itself
+        assertEquals(Collections.singletonList("1"), index.search("boot chat"));
+        assertTrue(index.search("bot chat").isEmpty());
+    }
+
+    @Test
+    public void shortQueriesAreMatchedAgainstTexts() {
+        assertEquals(new HashSet<>(Arrays.asList("1", "2", "3")), new HashSet<>(index.search("a")));
+        assertEquals(Collections.singletonList("2"), index.search("ga"));
+    }
+
+    @Test
+    public void putReplacesTheOldText() {
+        index.put("2", "iOS game");
+
+        assertTrue(index.search("android").isEmpty());
+        assertEquals(Collections.singletonList("2"), index.search("ios"));
+    }
+
+    @Test
+    public void removedDocumentsAreNotFound() {
+        index.remove("1");
+
+        assertEquals(Collections.singletonList("3"), index.search("chat"));
+        assertTrue(index.search("spring").isEmpty());
+    }
+
+    @Test
+    public void nullsAreIgnored() {
+        index.put(null, "text");
+        index.remove(null);
+        index.put("4", null);
+
+        assertTrue(index.search("text").isEmpty());
+    }
+}
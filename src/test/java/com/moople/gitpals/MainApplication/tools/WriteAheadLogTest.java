@@ -0,0 +1,113 @@
+package com.moople.gitpals.MainApplication.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WriteAheadLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path logFile;
+
+    @Before
+    public void setUp() throws IOException {
+        logFile = folder.newFolder().toPath().resolve("test.wal");
+    }
+
+    private WriteAheadLog<String> open() throws IOException {
+        return new WriteAheadLog<>(logFile, new ObjectMapper(), String.class, false);
+    }
+
+    private static Map<Long, String> records(Object... sequencesAndRecords) {
+        Map<Long, String> records = new LinkedHashMap<>();
+
+        for (int i = 0; i < sequencesAndRecords.length; i += 2) {
+            records.put(((Number) sequencesAndRecords[i]).longValue(), (String) sequencesAndRecords[i + 1]);
+        }
+
+        return records;
+    }
+
+    @Test
+    public void recordsAfterCheckpointAreReplayed() throws IOException {
+        try (WriteAheadLog<String> log = open()) {
+            assertEquals(1, log.append("first"));
+            assertEquals(2, log.append("second"));
+            assertEquals(3, log.append("third"));
+
+            log.complete(Collections.singletonList(1L));
+        }
+
+        try (WriteAheadLog<String> log = open()) {
+            assertEquals(records(2, "second", 3, "third"), log.readUncheckpointed());
+        }
+    }
+
+    @Test
+    public void checkpointWaitsForEarlierRecords() throws IOException {
+        try (WriteAheadLog<String> log = open()) {
+            log.append("first");
+            log.append("second");
+            log.append("third");
+
+            log.complete(Arrays.asList(2L, 3L));
+        }
+
+        try (WriteAheadLog<String> log = open()) {
+            assertEquals(records(1, "first", 2, "second", 3, "third"), log.readUncheckpointed());
+        }
+    }
+
+    @Test
+    public void completedLogIsTruncatedAndSequencesGoOn() throws IOException {
+        try (WriteAheadLog<String> log = open()) {
+            log.append("first");
+            log.append("second");
+
+            log.complete(Arrays.asList(1L, 2L));
+
+            assertEquals(0, Files.size(logFile));
+        }
+
+        try (WriteAheadLog<String> log = open()) {
+            assertTrue(log.readUncheckpointed().isEmpty());
+            assertEquals(3, log.append("third"));
+        }
+    }
+
+    @Test
+    public void recordCutByCrashIsDropped() throws IOException {
+        try (WriteAheadLog<String> log = open()) {
+            log.append("first");
+            log.append("second");
+        }
+
+        Files.write(logFile, "3\t\"thi".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (WriteAheadLog<String> log = open()) {
+            assertEquals(records(1, "first", 2, "second"), log.readUncheckpointed());
+            assertEquals(3, log.append("third"));
+        }
+
+        try (WriteAheadLog<String> log = open()) {
+            assertEquals(records(1, "first", 2, "second", 3, "third"), log.readUncheckpointed());
+        }
+    }
+}